@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread safe memoization of canonical directories.
+ *
+ * <p>Canonicalization costs one {@code lstat} per path segment, which is expensive on network file
+ * systems and symlinked workspaces while the model processor asks for the same directories again
+ * and again. Results are kept for the lifetime of the instance, which is bound to a build session:
+ * links changing during a build are not seen.
+ */
+public final class CanonicalPaths {
+  private final Map<File, File> directories = new ConcurrentHashMap<>();
+
+  /**
+   * Provides the canonical form of the given directory.
+   *
+   * @param directory a directory, absolute or relative to the current working directory
+   * @return the canonical directory
+   * @throws IOException if the directory cannot be canonicalized
+   */
+  public File canonicalDirectory(File directory) throws IOException {
+    try {
+      return directories.computeIfAbsent(
+          directory.getAbsoluteFile(),
+          dir -> {
+            try {
+              return dir.getCanonicalFile();
+            } catch (IOException ex) {
+              throw new UncheckedIOException(ex);
+            }
+          });
+    } catch (UncheckedIOException ex) {
+      throw ex.getCause();
+    }
+  }
+
+  /**
+   * Provides the canonical path of the given directory.
+   *
+   * @param directory a directory, absolute or relative to the current working directory
+   * @return the canonical path
+   * @throws IOException if the directory cannot be canonicalized
+   */
+  public String canonicalPath(File directory) throws IOException {
+    return canonicalDirectory(directory).getPath();
+  }
+}
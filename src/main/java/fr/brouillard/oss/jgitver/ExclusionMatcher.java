@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiled form of the configured exclusions.
+ *
+ * <p>Plain exclusions are stored as canonical paths in a trie of path segments, a directory is
+ * excluded when one of its ancestors (or itself) is a trie entry. Exclusions containing glob
+ * characters ({@code * ? [ {}) are matched with a {@link PathMatcher} against the path relative to
+ * the root directory, and against each of its parents so that sub directories are excluded too.
+ *
+ * <p>Instances are immutable apart from the memoized answers, and safe for concurrent callers.
+ */
+final class ExclusionMatcher {
+  static final ExclusionMatcher NONE =
+      new ExclusionMatcher(null, new Node(), Collections.emptyList());
+
+  private final Path rootDirectory;
+  private final Node trie;
+  private final List<PathMatcher> globs;
+  private final Map<File, Boolean> answers = new ConcurrentHashMap<>();
+
+  private ExclusionMatcher(Path rootDirectory, Node trie, List<PathMatcher> globs) {
+    this.rootDirectory = rootDirectory;
+    this.trie = trie;
+    this.globs = globs;
+  }
+
+  /**
+   * Compiles the given exclusions.
+   *
+   * @param rootDirectory the directory exclusions are relative to
+   * @param exclusions directory paths or glob patterns, relative to the root directory
+   * @return a non null matcher
+   */
+  static ExclusionMatcher compile(File rootDirectory, List<String> exclusions) {
+    Path root = canonicalPathOf(rootDirectory);
+    Node trie = new Node();
+    List<PathMatcher> globs = new ArrayList<>();
+
+    for (String exclusion : exclusions) {
+      if (isGlob(exclusion)) {
+        globs.add(FileSystems.getDefault().getPathMatcher("glob:" + exclusion));
+      } else {
+        Node node = trie;
+        for (String segment : segments(canonicalPathOf(new File(rootDirectory, exclusion)))) {
+          node = node.children.computeIfAbsent(segment, s -> new Node());
+        }
+        node.excluded = true;
+      }
+    }
+
+    return new ExclusionMatcher(root, trie, globs);
+  }
+
+  /**
+   * Tells if the given directory is excluded.
+   *
+   * @param canonicalDirectory a canonical directory
+   * @return true if the directory or one of its parents is excluded
+   */
+  boolean isExcluded(File canonicalDirectory) {
+    if (this == NONE) {
+      return false;
+    }
+    return answers.computeIfAbsent(canonicalDirectory, this::match);
+  }
+
+  private boolean match(File canonicalDirectory) {
+    Path directory = canonicalDirectory.toPath();
+
+    Node node = trie;
+    for (String segment : segments(directory)) {
+      node = node.children.get(segment);
+      if (node == null) {
+        break;
+      }
+      if (node.excluded) {
+        return true;
+      }
+    }
+
+    if (!globs.isEmpty() && directory.startsWith(rootDirectory)) {
+      for (Path relative = rootDirectory.relativize(directory);
+          relative != null && !relative.toString().isEmpty();
+          relative = relative.getParent()) {
+        for (PathMatcher glob : globs) {
+          if (glob.matches(relative)) {
+            return true;
+          }
+        }
+      }
+    }
+
+    return false;
+  }
+
+  private static boolean isGlob(String exclusion) {
+    return exclusion.chars().anyMatch(c -> c == '*' || c == '?' || c == '[' || c == '{');
+  }
+
+  private static List<String> segments(Path path) {
+    List<String> segments = new ArrayList<>(path.getNameCount() + 1);
+    if (path.getRoot() != null) {
+      segments.add(path.getRoot().toString());
+    }
+    for (Path name : path) {
+      segments.add(name.toString());
+    }
+    return segments;
+  }
+
+  private static Path canonicalPathOf(File dir) {
+    try {
+      return dir.getCanonicalFile().toPath();
+    } catch (IOException ex) {
+      return dir.getAbsoluteFile().toPath().normalize();
+    }
+  }
+
+  private static final class Node {
+    private final Map<String, Node> children = new HashMap<>();
+    private boolean excluded;
+  }
+}
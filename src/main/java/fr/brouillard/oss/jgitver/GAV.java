@@ -15,17 +15,24 @@
  */
 package fr.brouillard.oss.jgitver;
 
+import java.util.Objects;
 import org.apache.maven.model.Model;
 import org.apache.maven.model.Parent;
 import org.apache.maven.project.MavenProject;
 
-/** Wrapper for a maven project/dependency identified by a groupId/artifactId/version. */
-public class GAV { // SUPPRESS CHECKSTYLE AbbreviationAsWordInName
-  private String groupId;
-  private String artifactId;
-  private String version;
+/**
+ * Immutable wrapper for a maven project/dependency identified by a groupId/artifactId/version.
+ *
+ * <p>The hash code is computed once as GAVs are mainly used as keys of sets.
+ */
+public final class GAV { // SUPPRESS CHECKSTYLE AbbreviationAsWordInName
+  private final String groupId;
+
+  private final String artifactId;
 
-  public GAV() {}
+  private final String version;
+
+  private final int hash;
 
   /**
    * Builds an immutable GAV object.
@@ -38,6 +45,7 @@ public class GAV { // SUPPRESS CHECKSTYLE AbbreviationAsWordInName
     this.groupId = groupId;
     this.artifactId = artifactId;
     this.version = version;
+    this.hash = Objects.hash(groupId, artifactId, version);
   }
 
   /**
@@ -67,18 +75,6 @@ public class GAV { // SUPPRESS CHECKSTYLE AbbreviationAsWordInName
     return version;
   }
 
-  public void setGroupId(String groupId) {
-    this.groupId = groupId;
-  }
-
-  public void setArtifactId(String artifactId) {
-    this.artifactId = artifactId;
-  }
-
-  public void setVersion(String version) {
-    this.version = version;
-  }
-
   /**
    * Builds a GAV object from the given MavenProject object.
    *
@@ -90,20 +86,21 @@ public class GAV { // SUPPRESS CHECKSTYLE AbbreviationAsWordInName
   }
 
   /**
-   * Builds a GAV object from the given Model object.
+   * Builds a GAV object from the given Model object, the model is only read.
    *
    * @param model the project model to extract info from
    * @return a new GAV object
    */
   public static GAV from(Model model) {
+    Parent parent = model.getParent();
     String groupId =
         (model.getGroupId() != null)
             ? model.getGroupId()
-            : (model.getParent() != null ? model.getParent().getGroupId() : null);
+            : (parent != null ? parent.getGroupId() : null);
     String version =
         (model.getVersion() != null)
             ? model.getVersion()
-            : (model.getParent() != null ? model.getParent().getVersion() : null);
+            : (parent != null ? parent.getVersion() : null);
 
     return new GAV(groupId, model.getArtifactId(), version);
   }
@@ -120,12 +117,7 @@ public class GAV { // SUPPRESS CHECKSTYLE AbbreviationAsWordInName
 
   @Override
   public int hashCode() {
-    final int prime = 31;
-    int result = 1;
-    result = prime * result + ((artifactId == null) ? 0 : artifactId.hashCode());
-    result = prime * result + ((groupId == null) ? 0 : groupId.hashCode());
-    result = prime * result + ((version == null) ? 0 : version.hashCode());
-    return result;
+    return hash;
   }
 
   @Override
@@ -133,35 +125,14 @@ public class GAV { // SUPPRESS CHECKSTYLE AbbreviationAsWordInName
     if (this == obj) {
       return true;
     }
-    if (obj == null) {
-      return false;
-    }
-    if (getClass() != obj.getClass()) {
+    if (!(obj instanceof GAV)) {
       return false;
     }
     GAV other = (GAV) obj;
-    if (artifactId == null) {
-      if (other.artifactId != null) {
-        return false;
-      }
-    } else if (!artifactId.equals(other.artifactId)) {
-      return false;
-    }
-    if (groupId == null) {
-      if (other.groupId != null) {
-        return false;
-      }
-    } else if (!groupId.equals(other.groupId)) {
-      return false;
-    }
-    if (version == null) {
-      if (other.version != null) {
-        return false;
-      }
-    } else if (!version.equals(other.version)) {
-      return false;
-    }
-    return true;
+    return hash == other.hash
+        && Objects.equals(artifactId, other.artifactId)
+        && Objects.equals(groupId, other.groupId)
+        && Objects.equals(version, other.version);
   }
 
   @Override
@@ -15,6 +15,7 @@
  */
 package fr.brouillard.oss.jgitver;
 
+import fr.brouillard.oss.jgitver.cfg.CompiledConfiguration;
 import fr.brouillard.oss.jgitver.cfg.Configuration;
 import java.io.File;
 import java.io.IOException;
@@ -23,5 +24,23 @@ import org.apache.maven.MavenExecutionException;
 public interface JGitverConfiguration {
   public Configuration getConfiguration() throws MavenExecutionException;
 
+  /**
+   * Provides the configuration with its regular expressions compiled.
+   *
+   * @return a non null compiled configuration
+   * @throws MavenExecutionException if the configuration cannot be loaded
+   */
+  default CompiledConfiguration getCompiledConfiguration() throws MavenExecutionException {
+    return CompiledConfiguration.compile(getConfiguration());
+  }
+
   boolean ignore(File pomFile) throws IOException;
+
+  /**
+   * Tells if the poms of the given directory are excluded by the configuration.
+   *
+   * @param canonicalDirectory the canonical directory of a pom file
+   * @return true if the directory is excluded
+   */
+  boolean ignoreDirectory(File canonicalDirectory);
 }
@@ -15,13 +15,12 @@
  */
 package fr.brouillard.oss.jgitver;
 
+import fr.brouillard.oss.jgitver.cfg.CompiledConfiguration;
 import fr.brouillard.oss.jgitver.cfg.Configuration;
 import fr.brouillard.oss.jgitver.cfg.ConfigurationLoader;
 import java.io.File;
 import java.io.IOException;
-import java.util.LinkedList;
 import java.util.List;
-import org.apache.commons.lang3.StringUtils;
 import org.apache.maven.MavenExecutionException;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.LegacySupport;
@@ -35,12 +34,18 @@ public class JGitverConfigurationComponent implements JGitverConfiguration {
 
   @Requirement private Logger logger = null;
 
-  private volatile Configuration configuration;
+  private volatile CompiledConfiguration configuration;
 
-  private List<File> excludedDirectories = new LinkedList<>();
+  // compiled once when the configuration is loaded, published before the configuration
+  private volatile ExclusionMatcher exclusionMatcher = ExclusionMatcher.NONE;
 
   @Override
   public Configuration getConfiguration() throws MavenExecutionException {
+    return getCompiledConfiguration().getConfiguration();
+  }
+
+  @Override
+  public CompiledConfiguration getCompiledConfiguration() throws MavenExecutionException {
     if (configuration == null) {
       synchronized (this) {
         if (configuration == null) {
@@ -50,9 +55,11 @@ public class JGitverConfigurationComponent implements JGitverConfiguration {
           logger.debug(
               "using " + JGitverUtils.EXTENSION_PREFIX + " on directory: " + rootDirectory);
 
-          configuration = ConfigurationLoader.loadFromRoot(rootDirectory, logger);
+          CompiledConfiguration loaded =
+              new ConfigurationLoader(rootDirectory, logger).loadCompiled();
 
-          initFromRootDirectory(rootDirectory, configuration.exclusions);
+          initFromRootDirectory(rootDirectory, loaded.getConfiguration().exclusions);
+          configuration = loaded;
         }
       }
     }
@@ -61,24 +68,19 @@ public class JGitverConfigurationComponent implements JGitverConfiguration {
   }
 
   private void initFromRootDirectory(File rootDirectory, List<String> exclusions) {
-    exclusions.stream()
-        .map(dirName -> new File(rootDirectory, dirName))
-        .forEach(
-            dir -> {
-              excludedDirectories.add(dir);
-              logger.debug("ignoring directory (& sub dirs): " + dir);
-            });
+    exclusions.forEach(
+        exclusion ->
+            logger.debug("ignoring directory (& sub dirs): " + new File(rootDirectory, exclusion)));
+    exclusionMatcher = ExclusionMatcher.compile(rootDirectory, exclusions);
   }
 
   @Override
   public boolean ignore(File pomFile) throws IOException {
-    for (File excludedDir : excludedDirectories) {
-      if (StringUtils.containsIgnoreCase(
-          pomFile.getParentFile().getCanonicalFile().getCanonicalPath(),
-          excludedDir.getCanonicalPath())) {
-        return true;
-      }
-    }
-    return false;
+    return ignoreDirectory(pomFile.getParentFile().getCanonicalFile());
+  }
+
+  @Override
+  public boolean ignoreDirectory(File canonicalDirectory) {
+    return exclusionMatcher.isExcluded(canonicalDirectory);
   }
 }
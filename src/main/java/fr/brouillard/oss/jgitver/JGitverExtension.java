@@ -15,17 +15,29 @@
  */
 package fr.brouillard.oss.jgitver;
 
+import fr.brouillard.oss.jgitver.JGitverTimings.Stage;
+import fr.brouillard.oss.jgitver.cache.InMemoryVersionCache;
+import fr.brouillard.oss.jgitver.cache.VersionCache;
+import fr.brouillard.oss.jgitver.cache.VersionCacheKey;
+import fr.brouillard.oss.jgitver.cache.VersionFiles;
+import fr.brouillard.oss.jgitver.cfg.CompiledConfiguration;
 import fr.brouillard.oss.jgitver.cfg.Configuration;
+import fr.brouillard.oss.jgitver.git.DirtyChecker;
+import fr.brouillard.oss.jgitver.jfr.JGitverEvents;
+import fr.brouillard.oss.jgitver.jfr.JGitverEvents.Span;
 import fr.brouillard.oss.jgitver.metadata.Metadatas;
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 import org.apache.maven.AbstractMavenLifecycleParticipant;
 import org.apache.maven.MavenExecutionException;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.model.building.ModelProcessor;
+import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.PlexusContainer;
 import org.codehaus.plexus.component.annotations.Component;
 import org.codehaus.plexus.component.annotations.Requirement;
@@ -45,7 +57,9 @@ public class JGitverExtension extends AbstractMavenLifecycleParticipant {
 
   @Override
   public void afterSessionStart(MavenSession mavenSession) throws MavenExecutionException {
-    if (JGitverUtils.shouldSkip(mavenSession)) {
+    JGitverProperties properties = JGitverProperties.of(mavenSession, logger);
+    JGitverTimings timings = new JGitverTimings();
+    if (properties.shouldSkip()) {
       logger.info("  jgitver execution has been skipped by request of the user");
       sessionHolder.setSession(null);
     } else {
@@ -53,106 +67,287 @@ public class JGitverExtension extends AbstractMavenLifecycleParticipant {
 
       logger.debug("using " + JGitverUtils.EXTENSION_PREFIX + " on directory: " + rootDirectory);
 
-      Configuration cfg = configurationProvider.getConfiguration();
+      logger.info(
+          String.format(
+              "Using jgitver-maven-plugin [%s] (sha1: %s)",
+              JGitverMavenPluginProperties.getVersion(), JGitverMavenPluginProperties.getSHA1()));
 
-      try (GitVersionCalculator gitVersionCalculator =
-          GitVersionCalculator.location(rootDirectory)) {
-        if (cfg.strategy != null) {
-          gitVersionCalculator.setStrategy(cfg.strategy);
-        } else {
-          gitVersionCalculator.setMavenLike(cfg.mavenLike);
-        }
+      Optional<File> importFile =
+          properties
+              .get(JGitverUtils.EXTENSION_IMPORT)
+              .map(File::new)
+              .map(f -> f.isAbsolute() ? f : new File(rootDirectory, f.getPath()));
 
-        if (cfg.policy != null) {
-          gitVersionCalculator.setLookupPolicy(cfg.policy);
-        }
+      // maven snapshots the user properties before reading the first pom (profile activation,
+      // interpolation), so the version must be known when this method returns
+      long start = System.nanoTime();
+      CompiledConfiguration compiled = configurationProvider.getCompiledConfiguration();
+      timings.recordSince(Stage.CONFIGURATION, start);
+      Configuration cfg = compiled.getConfiguration();
+      Set<Metadatas> metadatas = JGitverUtils.metadatasToPublish(properties);
 
-        gitVersionCalculator
-            .setAutoIncrementPatch(cfg.autoIncrementPatch)
-            .setUseDirty(cfg.useDirty)
-            .setUseDistance(cfg.useCommitDistance)
-            .setUseGitCommitTimestamp(cfg.useGitCommitTimestamp)
-            .setUseGitCommitId(cfg.useGitCommitId)
-            .setUseSnapshot(cfg.useSnapshot)
-            .setGitCommitIdLength(cfg.gitCommitIdLength)
-            .setUseDefaultBranchingPolicy(cfg.useDefaultBranchingPolicy)
-            .setNonQualifierBranches(cfg.nonQualifierBranches)
-            .setVersionPattern(cfg.versionPattern)
-            .setTagVersionPattern(cfg.tagVersionPattern)
-            .setScript(cfg.script)
-            .setScriptType(cfg.scriptType);
-
-        if (cfg.maxSearchDepth >= 1 && cfg.maxSearchDepth != Configuration.UNSET_DEPTH) {
-          // keep redundant test in case we change UNSET_DEPTH value
-          gitVersionCalculator.setMaxDepth(cfg.maxSearchDepth);
-        }
+      if (importFile.isPresent()) {
+        publish(
+            mavenSession,
+            properties,
+            timings,
+            rootDirectory,
+            importVersion(importFile.get()),
+            metadatas);
+      } else {
+        try {
+          Optional<Boolean> dirty = Optional.empty();
+          if (cfg.failIfDirty) {
+            // same meaning as the DIRTY metadata, the result is reused by the cache key
+            start = System.nanoTime();
+            dirty = Optional.of(DirtyChecker.isDirty(rootDirectory));
+            timings.recordSince(Stage.DIRTY_CHECK, start);
+            if (dirty.get()) {
+              throw new IllegalStateException("repository is dirty");
+            }
+          }
 
-        if (JGitverUtils.shouldForceComputation(mavenSession)) {
-          gitVersionCalculator.setForceComputation(true);
+          publish(
+              mavenSession,
+              properties,
+              timings,
+              rootDirectory,
+              versionInformation(properties, timings, rootDirectory, compiled, dirty),
+              metadatas);
+        } catch (Exception ex) {
+          logger.warn(
+              "cannot autoclose GitVersionCalculator object for project: " + rootDirectory, ex);
         }
+      }
+    }
+  }
 
-        if (cfg.regexVersionTag != null) {
-          gitVersionCalculator.setFindTagVersionPattern(cfg.regexVersionTag);
-        }
+  private JGitverInformationProvider importVersion(File importFile) throws MavenExecutionException {
+    try {
+      // the git repository is never opened, the exported computation is trusted as is
+      JGitverInformationProvider imported = VersionFiles.read(importFile);
+      logger.info(
+          String.format("    version '%s' imported from %s", imported.getVersion(), importFile));
+      logger.info("");
+      return imported;
+    } catch (IOException ex) {
+      throw new MavenExecutionException("cannot import jgitver version from " + importFile, ex);
+    }
+  }
 
-        if (cfg.branchPolicies != null && !cfg.branchPolicies.isEmpty()) {
-          List<BranchingPolicy> policies =
-              cfg.branchPolicies.stream()
-                  .map(bp -> new BranchingPolicy(bp.pattern, bp.transformations))
-                  .collect(Collectors.toList());
+  private void publish(
+      MavenSession mavenSession,
+      JGitverProperties properties,
+      JGitverTimings timings,
+      File rootDirectory,
+      JGitverInformationProvider infoProvider,
+      Set<Metadatas> metadatas) {
+    JGitverInformationProvider computation = infoProvider;
+    infoProvider =
+        properties
+            .get(JGitverUtils.EXTENSION_USE_VERSION)
+            .map(version -> Providers.fixVersion(version, computation))
+            .orElse(infoProvider);
 
-          gitVersionCalculator.setQualifierBranchingPolicies(policies);
-        }
+    long start = System.nanoTime();
+    JGitverUtils.fillPropertiesFromMetadatas(
+        mavenSession.getUserProperties(), infoProvider, metadatas, logger);
+    timings.recordSince(Stage.METADATA, start);
+
+    JGitverSession session =
+        new JGitverSession(infoProvider, computation, rootDirectory, properties, timings);
+    try {
+      // resolved once, every pom read is then compared to it
+      session.getCanonicalPaths().canonicalDirectory(rootDirectory);
+    } catch (IOException ex) {
+      logger.debug("cannot canonicalize " + rootDirectory, ex);
+    }
+    sessionHolder.setSession(session);
+  }
+
+  private JGitverInformationProvider versionInformation(
+      JGitverProperties properties,
+      JGitverTimings timings,
+      File rootDirectory,
+      CompiledConfiguration compiled,
+      Optional<Boolean> dirty)
+      throws Exception {
+    Span event = JGitverEvents.versionComputation(rootDirectory);
+    try {
+      JGitverInformationProvider provider =
+          versionInformation(properties, timings, rootDirectory, compiled, dirty, event);
+      event.version(provider.getVersion());
+      return provider;
+    } finally {
+      event.finish();
+    }
+  }
+
+  private JGitverInformationProvider versionInformation(
+      JGitverProperties properties,
+      JGitverTimings timings,
+      File rootDirectory,
+      CompiledConfiguration compiled,
+      Optional<Boolean> dirty,
+      Span event)
+      throws Exception {
+    boolean forceComputation = properties.shouldForceComputation();
+    boolean useMemoryCache = properties.shouldUseMemoryCache();
+    VersionCache diskCache =
+        properties.shouldUseCache() ? new VersionCache(rootDirectory, logger) : null;
+    Optional<String> cacheKey = Optional.empty();
+
+    if (useMemoryCache || diskCache != null) {
+      long start = System.nanoTime();
+      cacheKey = VersionCacheKey.compute(rootDirectory, compiled, forceComputation, dirty);
+      timings.recordSince(Stage.CACHE_KEY, start);
+      if (!cacheKey.isPresent()) {
+        logger.debug("repository state cannot be fingerprinted, jgitver caches are not used");
+      }
+    }
 
+    if (cacheKey.isPresent()) {
+      String key = cacheKey.get();
+      Optional<JGitverInformationProvider> cached =
+          useMemoryCache ? InMemoryVersionCache.lookup(rootDirectory, key) : Optional.empty();
+      if (cached.isPresent()) {
+        event.cacheHit(true);
         logger.info(
             String.format(
-                "Using jgitver-maven-plugin [%s] (sha1: %s)",
-                JGitverMavenPluginProperties.getVersion(), JGitverMavenPluginProperties.getSHA1()));
-        long start = System.currentTimeMillis();
-
-        String computedVersion = gitVersionCalculator.getVersion();
+                "    version '%s' reused from previous build", cached.get().getVersion()));
+        logger.info("");
+        return cached.get();
+      }
 
-        long duration = System.currentTimeMillis() - start;
-        logger.info(String.format("    version '%s' computed in %d ms", computedVersion, duration));
+      cached = diskCache != null ? diskCache.lookup(key) : Optional.empty();
+      if (cached.isPresent()) {
+        event.cacheHit(true);
+        logger.info(
+            String.format(
+                "    version '%s' read from cache %s",
+                cached.get().getVersion(), diskCache.getCacheFile()));
         logger.info("");
+        if (useMemoryCache) {
+          InMemoryVersionCache.store(rootDirectory, key, cached.get());
+        }
+        return cached.get();
+      }
+    }
 
-        boolean isDirty =
-            gitVersionCalculator
-                .meta(Metadatas.DIRTY)
-                .map(Boolean::parseBoolean)
-                .orElse(Boolean.FALSE);
+    JGitverInformationProvider computed =
+        computeVersion(timings, rootDirectory, compiled, forceComputation);
 
-        if (cfg.failIfDirty && isDirty) {
-          throw new IllegalStateException("repository is dirty");
-        }
+    if (cacheKey.isPresent()) {
+      if (useMemoryCache) {
+        InMemoryVersionCache.store(rootDirectory, cacheKey.get(), computed);
+      }
+      if (diskCache != null) {
+        diskCache.store(cacheKey.get(), computed);
+      }
+    }
+    return computed;
+  }
+
+  private JGitverInformationProvider computeVersion(
+      JGitverTimings timings,
+      File rootDirectory,
+      CompiledConfiguration compiled,
+      boolean forceComputation)
+      throws Exception {
+    Configuration cfg = compiled.getConfiguration();
+    long open = System.nanoTime();
+    try (GitVersionCalculator gitVersionCalculator = GitVersionCalculator.location(rootDirectory)) {
+      timings.recordSince(Stage.REPOSITORY_OPEN, open);
+      if (cfg.strategy != null) {
+        gitVersionCalculator.setStrategy(cfg.strategy);
+      } else {
+        gitVersionCalculator.setMavenLike(cfg.mavenLike);
+      }
+
+      if (cfg.policy != null) {
+        gitVersionCalculator.setLookupPolicy(cfg.policy);
+      }
+
+      gitVersionCalculator
+          .setAutoIncrementPatch(cfg.autoIncrementPatch)
+          .setUseDirty(cfg.useDirty)
+          .setUseDistance(cfg.useCommitDistance)
+          .setUseGitCommitTimestamp(cfg.useGitCommitTimestamp)
+          .setUseGitCommitId(cfg.useGitCommitId)
+          .setUseSnapshot(cfg.useSnapshot)
+          .setGitCommitIdLength(cfg.gitCommitIdLength)
+          .setUseDefaultBranchingPolicy(cfg.useDefaultBranchingPolicy)
+          .setNonQualifierBranches(cfg.nonQualifierBranches)
+          .setVersionPattern(cfg.versionPattern)
+          .setTagVersionPattern(cfg.tagVersionPattern)
+          .setScript(cfg.script)
+          .setScriptType(cfg.scriptType);
 
-        JGitverInformationProvider infoProvider = Providers.decorate(gitVersionCalculator);
-        JGitverInformationProvider finalInfoProvider = infoProvider;
-        infoProvider =
-            JGitverUtils.versionOverride(mavenSession, logger)
-                .map(version -> Providers.fixVersion(version, finalInfoProvider))
-                .orElse(infoProvider);
+      if (cfg.maxSearchDepth >= 1 && cfg.maxSearchDepth != Configuration.UNSET_DEPTH) {
+        // keep redundant test in case we change UNSET_DEPTH value
+        gitVersionCalculator.setMaxDepth(cfg.maxSearchDepth);
+      }
+
+      if (forceComputation) {
+        gitVersionCalculator.setForceComputation(true);
+      }
 
-        JGitverUtils.fillPropertiesFromMetadatas(
-            mavenSession.getUserProperties(), infoProvider, logger);
+      if (cfg.regexVersionTag != null) {
+        gitVersionCalculator.setFindTagVersionPattern(cfg.regexVersionTag);
+      }
 
-        JGitverSession session = new JGitverSession(infoProvider, rootDirectory);
-        sessionHolder.setSession(session);
-      } catch (Exception ex) {
-        logger.warn(
-            "cannot autoclose GitVersionCalculator object for project: " + rootDirectory, ex);
+      if (!compiled.getBranchingPolicies().isEmpty()) {
+        gitVersionCalculator.setQualifierBranchingPolicies(compiled.getBranchingPolicies());
       }
+
+      long start = System.nanoTime();
+
+      String computedVersion = gitVersionCalculator.getVersion();
+
+      long durationNanos = System.nanoTime() - start;
+      timings.record(Stage.VERSION_COMPUTATION, durationNanos);
+      long duration = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+      logger.info(String.format("    version '%s' computed in %d ms", computedVersion, duration));
+      logger.info("");
+
+      return Providers.decorate(gitVersionCalculator);
     }
   }
 
   @Override
   public void afterSessionEnd(MavenSession session) throws MavenExecutionException {
+    sessionHolder
+        .session()
+        .map(JGitverSession::getModels)
+        .ifPresent(
+            models ->
+                logger.debug(
+                    String.format(
+                        "model cache hits: %d, misses: %d", models.hits(), models.misses())));
+    // a session stopped before the poms got attached keeps the previous dumps, they are still
+    // valid and keep the next attachment incremental; they are deleted only when this session
+    // does not attach any pom, jgitver being skipped or the flatten plugin being used
+    boolean attachesPoms =
+        sessionHolder
+            .session()
+            .map(JGitverSession::getProperties)
+            .map(properties -> !properties.shouldUseFlattenPlugin())
+            .orElse(false);
+    if (!attachesPoms && session.getProjects() != null) {
+      JGitverUtils.deleteStalePomDumpFiles(session.getProjects(), logger);
+    }
+    sessionHolder.session().ifPresent(this::reportTimings);
+    JGitverSessionHandoff.clear(session);
     sessionHolder.setSession(null);
   }
 
   @Override
   public void afterProjectsRead(MavenSession mavenSession) throws MavenExecutionException {
-    if (!JGitverUtils.shouldSkip(mavenSession)) {
+    // a published session was not skipped when the session started
+    boolean skip =
+        !sessionHolder.session().isPresent()
+            && JGitverProperties.of(mavenSession, logger).shouldSkip();
+    if (!skip) {
       File projectBaseDir = mavenSession.getCurrentProject().getBasedir();
       try {
         if (projectBaseDir != null
@@ -161,9 +356,9 @@ public class JGitverExtension extends AbstractMavenLifecycleParticipant {
 
           if (JGitverModelProcessor.class.isAssignableFrom(modelProcessor.getClass())) {
 
-            if (!mavenSession
-                .getUserProperties()
-                .containsKey(JGitverUtils.SESSION_MAVEN_PROPERTIES_KEY)) {
+            boolean projectsHandled =
+                sessionHolder.session().filter(s -> !s.getProjects().isEmpty()).isPresent();
+            if (!projectsHandled) {
               JGitverUtils.failAsOldMechanism(c);
             }
           } else {
@@ -192,6 +387,68 @@ public class JGitverExtension extends AbstractMavenLifecycleParticipant {
             "cannot evaluate if jgitver should ignore base project directory: " + projectBaseDir,
             ex);
       }
+
+      Optional<JGitverSession> jgitverSession = sessionHolder.session();
+      if (jgitverSession.isPresent()) {
+        try {
+          JGitverSessionHandoff.publish(mavenSession, jgitverSession.get());
+          exposeRawPoms(mavenSession.getAllProjects(), jgitverSession.get());
+        } catch (IOException ex) {
+          throw new MavenExecutionException(ex.getMessage(), ex);
+        }
+      }
+    }
+  }
+
+  /**
+   * Logs the one line summary of the jgitver timings and writes the detailed report in the build
+   * directory of the top level project.
+   */
+  private void reportTimings(JGitverSession jgitverSession) {
+    JGitverTimings timings = jgitverSession.getTimings();
+    logger.info(timings.summary());
+
+    // the detailed report is opt-in, a build must not recreate a directory it did not ask for
+    Optional<File> report =
+        jgitverSession
+            .getProperties()
+            .get(JGitverUtils.EXTENSION_TIMINGS)
+            .map(File::new)
+            .map(
+                f ->
+                    f.isAbsolute()
+                        ? f
+                        : new File(jgitverSession.getMultiModuleDirectory(), f.getPath()));
+    if (report.isPresent()) {
+      try {
+        timings.write(report.get(), jgitverSession.getVersion());
+      } catch (IOException ex) {
+        logger.warn("cannot write jgitver timings to " + report.get(), ex);
+      }
+    }
+  }
+
+  /**
+   * Hands the raw poms read by the model processor over to the projects, so that the attach mojo
+   * does not read them again.
+   */
+  private void exposeRawPoms(List<MavenProject> projects, JGitverSession jgitverSession)
+      throws IOException {
+    if (projects == null) {
+      return;
+    }
+    CanonicalPaths canonicalPaths = jgitverSession.getCanonicalPaths();
+    for (MavenProject project : projects) {
+      File pom = project.getFile();
+      if (pom == null) {
+        continue;
+      }
+      File location =
+          new File(canonicalPaths.canonicalDirectory(pom.getParentFile()), pom.getName());
+      jgitverSession
+          .getRawPoms()
+          .get(location)
+          .ifPresent(content -> project.setContextValue(JGitverUtils.RAW_POM_CONTEXT_KEY, content));
     }
   }
 }
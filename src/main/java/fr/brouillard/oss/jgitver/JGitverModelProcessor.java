@@ -15,12 +15,18 @@
  */
 package fr.brouillard.oss.jgitver;
 
+import fr.brouillard.oss.jgitver.jfr.JGitverEvents;
+import fr.brouillard.oss.jgitver.jfr.JGitverEvents.Span;
 import fr.brouillard.oss.jgitver.metadata.Metadatas;
 import fr.brouillard.oss.jgitver.mojos.JGitverAttachModifiedPomsMojo;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -69,56 +75,198 @@ public class JGitverModelProcessor extends DefaultModelProcessor {
 
   @Override
   public Model read(File input, Map<String, ?> options) throws IOException {
-    return provisionModel(super.read(input, options), options);
+    Model model =
+        read(
+            null,
+            options,
+            () -> super.read(input, options),
+            () -> Files.readAllBytes(input.toPath()));
+    // the default reader sets the pom file, but neither cached models nor streamed reads have it
+    model.setPomFile(input);
+    return model;
   }
 
   @Override
   public Model read(Reader input, Map<String, ?> options) throws IOException {
-    return provisionModel(super.read(input, options), options);
+    // the raw bytes are not available from a reader
+    return read(input, options, () -> super.read(input, options), null);
   }
 
   @Override
   public Model read(InputStream input, Map<String, ?> options) throws IOException {
-    return provisionModel(super.read(input, options), options);
+    return read(input, options, () -> super.read(input, options), () -> readFully(input));
+  }
+
+  /** Reads and closes the given stream, as the default reader does. */
+  private static byte[] readFully(InputStream input) throws IOException {
+    try (InputStream in = input) {
+      ByteArrayOutputStream content = new ByteArrayOutputStream(8192);
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        content.write(buffer, 0, read);
+      }
+      return content.toByteArray();
+    }
+  }
+
+  private Model read(
+      Closeable input, Map<String, ?> options, ModelReading reading, RawReading rawReading)
+      throws IOException {
+    Optional<JGitverSession> optSession = jgitverSession.session();
+    if (!optSession.isPresent()) {
+      // don't do anything in case no jgitver is there (execution could have been skipped)
+      return reading.read();
+    }
+
+    Source source = (Source) options.get(ModelProcessor.SOURCE);
+    if (source != null
+        && !optSession.get().getReactorLocations().mayContain(source.getLocation())) {
+      // poms from the local repository & others outside of the reactor are left untouched
+      return reading.read();
+    }
+
+    JGitverTimings timings = optSession.get().getTimings();
+    ModelCache.Key key = cacheKey(optSession.get(), options);
+    if (key == null) {
+      return provisionModel(timings, reading.read(), options);
+    }
+
+    ModelCache models = optSession.get().getModels();
+    Model cached = models.get(key);
+    if (cached != null) {
+      if (input != null) {
+        // the caller expects the stream to be consumed & closed by the read
+        input.close();
+      }
+      logDebugCacheAccess("hit", key, models);
+      JGitverEvents.modelProvision(key.getLocation())
+          .cacheHit(true)
+          .version(cached.getVersion())
+          .finish();
+      return cached;
+    }
+
+    Model model;
+    if (rawReading == null) {
+      model = provisionModel(timings, reading.read(), options);
+    } else {
+      // the raw pom is kept so that attaching the modified poms does not read it again
+      byte[] content = rawReading.read();
+      model =
+          provisionModel(timings, super.read(new ByteArrayInputStream(content), options), options);
+      optSession.get().getRawPoms().put(key.getLocation(), content);
+    }
+    models.put(key, model);
+    logDebugCacheAccess("miss", key, models);
+    return model;
+  }
+
+  private void logDebugCacheAccess(String access, ModelCache.Key key, ModelCache models) {
+    if (logger.isDebugEnabled()) {
+      logger.debug(
+          String.format(
+              "model cache %s for %s (hits: %d, misses: %d)",
+              access, key, models.hits(), models.misses()));
+    }
+  }
+
+  /**
+   * Computes the cache key of a read, only poms of the multi module project are cached.
+   *
+   * @return the key or null if the read must not be cached
+   */
+  private ModelCache.Key cacheKey(JGitverSession jgitverSession, Map<String, ?> options)
+      throws IOException {
+    Source source = (Source) options.get(ModelProcessor.SOURCE);
+    if (source == null) {
+      return null;
+    }
+    File location = new File(source.getLocation());
+    if (!location.isFile()) {
+      return null;
+    }
+
+    CanonicalPaths canonicalPaths = jgitverSession.getCanonicalPaths();
+    File directory = canonicalPaths.canonicalDirectory(location.getParentFile());
+    File multiModuleDirectory =
+        canonicalPaths.canonicalDirectory(jgitverSession.getMultiModuleDirectory());
+    if (!directory.toPath().startsWith(multiModuleDirectory.toPath())) {
+      return null;
+    }
+
+    String readOptions =
+        "strict="
+            + options.get(ModelProcessor.IS_STRICT)
+            + ";locations="
+            + (options.get(ModelProcessor.INPUT_SOURCE) != null);
+    return new ModelCache.Key(new File(directory, location.getName()), readOptions);
+  }
+
+  @FunctionalInterface
+  private interface ModelReading {
+    Model read() throws IOException;
+  }
+
+  @FunctionalInterface
+  private interface RawReading {
+    byte[] read() throws IOException;
+  }
+
+  private Model provisionModel(JGitverTimings timings, Model model, Map<String, ?> options)
+      throws IOException {
+    Source source = (Source) options.get(ModelProcessor.SOURCE);
+    Span event =
+        JGitverEvents.modelProvision(source == null ? null : new File(source.getLocation()));
+    long start = System.nanoTime();
+    try {
+      Model provisioned = provisionModel(model, options);
+      event.version(provisioned.getVersion());
+      return provisioned;
+    } finally {
+      timings.recordSince(JGitverTimings.Stage.MODEL_PROVISION, start);
+      event.finish();
+    }
   }
 
   private Model provisionModel(Model model, Map<String, ?> options) throws IOException {
     MavenSession session = legacySupport.getSession();
+    Source source = (Source) options.get(ModelProcessor.SOURCE);
+    if (source == null) {
+      return model;
+    }
+
+    File location = new File(source.getLocation());
+    if (!location.isFile()) {
+      // their JavaDoc says Source.getLocation "could be a local file path, a URI or just an empty
+      // string."
+      // if it doesn't resolve to a file then calling .getParentFile will throw an exception,
+      // but if it doesn't resolve to a file then it isn't under getMultiModuleProjectDirectory,
+      return model; // therefore the model shouldn't be modified.
+    }
+
     Optional<JGitverSession> optSession = jgitverSession.session();
     if (!optSession.isPresent()) {
       // don't do anything in case no jgitver is there (execution could have been skipped)
       return model;
     } else {
+      JGitverSession jgitverSession = optSession.get();
+      CanonicalPaths canonicalPaths = jgitverSession.getCanonicalPaths();
+      File relativePath = canonicalPaths.canonicalDirectory(location.getParentFile());
 
-      Source source = (Source) options.get(ModelProcessor.SOURCE);
-      if (source == null) {
-        return model;
-      }
-
-      File location = new File(source.getLocation());
-      if (!location.isFile()) {
-        // their JavaDoc says Source.getLocation "could be a local file path, a URI or just an empty
-        // string."
-        // if it doesn't resolve to a file then calling .getParentFile will throw an exception,
-        // but if it doesn't resolve to a file then it isn't under getMultiModuleProjectDirectory,
-        return model; // therefore the model shouldn't be modified.
-      }
-
-      if (configurationProvider.ignore(location)) {
+      if (configurationProvider.ignoreDirectory(relativePath)) {
         logger.debug("file " + location + " ignored by configuration");
         return model;
       }
 
-      JGitverSession jgitverSession = optSession.get();
-      File relativePath = location.getParentFile().getCanonicalFile();
-      File multiModuleDirectory = jgitverSession.getMultiModuleDirectory();
+      String multiModuleDirectory =
+          canonicalPaths.canonicalPath(jgitverSession.getMultiModuleDirectory());
       String calculatedVersion = jgitverSession.getVersion();
 
-      if (StringUtils.containsIgnoreCase(
-          relativePath.getCanonicalPath(), multiModuleDirectory.getCanonicalPath())) {
+      if (StringUtils.containsIgnoreCase(relativePath.getPath(), multiModuleDirectory)) {
         logger.debug("handling version of project Model from " + location);
 
-        jgitverSession.addProject(GAV.from(model.clone()));
+        jgitverSession.addProject(GAV.from(model));
 
         if (Objects.nonNull(model.getVersion())) {
           // TODO evaluate how to set the version only when it was originally set in the pom file
@@ -128,20 +276,18 @@ public class JGitverModelProcessor extends DefaultModelProcessor {
         if (Objects.nonNull(model.getParent())) {
           // if the parent is part of the multi module project, let's update the parent version
           String modelParentRelativePath = model.getParent().getRelativePath();
-          File relativePathParent =
-              new File(relativePath.getCanonicalPath() + File.separator + modelParentRelativePath)
-                  .getParentFile()
-                  .getCanonicalFile();
           if (StringUtils.isNotBlank(modelParentRelativePath)
               && StringUtils.containsIgnoreCase(
-                  relativePathParent.getCanonicalPath(), multiModuleDirectory.getCanonicalPath())) {
+                  canonicalPaths.canonicalPath(
+                      new File(relativePath, modelParentRelativePath).getParentFile()),
+                  multiModuleDirectory)) {
             model.getParent().setVersion(calculatedVersion);
           }
         }
 
         // we should only register the plugin once, on the main project
-        if (relativePath.getCanonicalPath().equals(multiModuleDirectory.getCanonicalPath())) {
-          if (JGitverUtils.shouldUseFlattenPlugin(session)) {
+        if (relativePath.getPath().equals(multiModuleDirectory)) {
+          if (shouldUseFlattenPlugin(jgitverSession, session)) {
             if (shouldSkipPomUpdate(model)) {
               logger.info(
                   "skipPomUpdate property is activated, jgitver will not define any maven-flatten-plugin execution");
@@ -160,16 +306,6 @@ public class JGitverModelProcessor extends DefaultModelProcessor {
 
           updateScmTag(jgitverSession.getCalculator(), model);
         }
-
-        try {
-          session
-              .getUserProperties()
-              .put(
-                  JGitverUtils.SESSION_MAVEN_PROPERTIES_KEY,
-                  JGitverSession.serializeTo(jgitverSession));
-        } catch (Exception ex) {
-          throw new IOException("cannot serialize JGitverSession", ex);
-        }
       } else {
         logger.debug("skipping Model from " + location);
       }
@@ -265,6 +401,14 @@ public class JGitverModelProcessor extends DefaultModelProcessor {
     return configuration;
   }
 
+  private static boolean shouldUseFlattenPlugin(
+      JGitverSession jgitverSession, MavenSession session) {
+    JGitverProperties properties = jgitverSession.getProperties();
+    return properties != null
+        ? properties.shouldUseFlattenPlugin()
+        : JGitverUtils.shouldUseFlattenPlugin(session);
+  }
+
   private boolean shouldSkipPomUpdate(Model model) throws IOException {
     try {
       return configurationProvider.getConfiguration().skipPomUpdate;
@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Function;
+import org.apache.maven.execution.MavenSession;
+import org.codehaus.plexus.logging.Logger;
+
+/**
+ * Immutable snapshot of the jgitver properties of a maven session, taken once when the session
+ * starts.
+ *
+ * <p>The precedence rules of {@link JGitverUtils#getProperty(MavenSession, String, Logger)} are
+ * applied when the snapshot is built, for every {@code jgitver*} property defined in the session,
+ * for their IEEE Std 1003.1-2001 compliant aliases and for the options of the extension: a lookup
+ * is then a single map access. Properties set later in the session, like the published metadatas,
+ * are not part of the snapshot.
+ */
+public final class JGitverProperties {
+  private static final String ENV_PREFIX = "env.";
+  private static final List<String> OPTIONS =
+      Arrays.asList(
+          JGitverUtils.EXTENSION_SKIP,
+          JGitverUtils.EXTENSION_FORCE_COMPUTATION,
+          JGitverUtils.EXTENSION_FLATTEN,
+          JGitverUtils.EXTENSION_USE_VERSION,
+          JGitverUtils.EXTENSION_CACHE,
+          JGitverUtils.EXTENSION_MEMORY_CACHE,
+          JGitverUtils.EXTENSION_METADATAS,
+          JGitverUtils.EXTENSION_IMPORT,
+          JGitverUtils.EXTENSION_TIMINGS);
+
+  private final Map<String, String> userProperties;
+  private final Map<String, String> envProperties;
+  private final Map<String, String> systemProperties;
+  private final Map<String, String> values;
+  private final boolean skip;
+  private final boolean forceComputation;
+  private final boolean flatten;
+  private final boolean cache;
+  private final boolean memoryCache;
+
+  private JGitverProperties(Properties user, Properties system, Logger logger) {
+    userProperties = jgitverEntries(user, "");
+    envProperties = jgitverEntries(system, ENV_PREFIX);
+    systemProperties = jgitverEntries(system, "");
+
+    Set<String> names = new HashSet<>(OPTIONS);
+    names.addAll(userProperties.keySet());
+    names.addAll(envProperties.keySet());
+    names.addAll(systemProperties.keySet());
+
+    Map<String, String> resolved = new HashMap<>();
+    for (String name : names) {
+      resolve(name, logger).ifPresent(value -> resolved.put(name, value));
+      String alias = JGitverUtils.normalizeSystemPropertyName(name);
+      if (!names.contains(alias)) {
+        resolve(alias, logger).ifPresent(value -> resolved.put(alias, value));
+      }
+    }
+    values = Collections.unmodifiableMap(resolved);
+
+    skip = anyTrue(JGitverUtils.EXTENSION_SKIP);
+    forceComputation = anyTrue(JGitverUtils.EXTENSION_FORCE_COMPUTATION);
+    flatten = anyTrue(JGitverUtils.EXTENSION_FLATTEN);
+    cache = anyTrue(JGitverUtils.EXTENSION_CACHE);
+    memoryCache = anyTrue(JGitverUtils.EXTENSION_MEMORY_CACHE);
+  }
+
+  /**
+   * Takes the snapshot of the jgitver properties of the given session.
+   *
+   * @param session a running maven session
+   * @param logger logger reporting where each property has been found
+   * @return a non null snapshot
+   */
+  public static JGitverProperties of(MavenSession session, Logger logger) {
+    return of(session.getUserProperties(), session.getSystemProperties(), logger);
+  }
+
+  /**
+   * Takes the snapshot of the jgitver properties of the given user and system properties.
+   *
+   * @param user user properties, with the highest priority
+   * @param system system properties, environment variables being prefixed by {@code env.}
+   * @param logger logger reporting where each property has been found, can be null
+   * @return a non null snapshot
+   */
+  public static JGitverProperties of(Properties user, Properties system, Logger logger) {
+    return new JGitverProperties(user, system, logger);
+  }
+
+  /**
+   * Provides the value of the given property, see {@link JGitverUtils#getProperty(MavenSession,
+   * String, Logger)} for the precedence rules.
+   *
+   * @param propertyName the name of the property, in the {@code jgitver} namespace
+   * @return the value of the property or empty if it was not defined when the snapshot was taken
+   */
+  public Optional<String> get(String propertyName) {
+    String value = values.get(propertyName);
+    if (value != null) {
+      return Optional.of(value);
+    }
+    if (!propertyName.startsWith(JGitverUtils.EXTENSION_PREFIX)) {
+      return Optional.empty();
+    }
+    // a name only defined through its compliant alias
+    return resolve(propertyName, null);
+  }
+
+  /** @see JGitverUtils#shouldSkip(MavenSession) */
+  public boolean shouldSkip() {
+    return skip;
+  }
+
+  /** @see JGitverUtils#shouldForceComputation(MavenSession) */
+  public boolean shouldForceComputation() {
+    return forceComputation;
+  }
+
+  /** @see JGitverUtils#shouldUseFlattenPlugin(MavenSession) */
+  public boolean shouldUseFlattenPlugin() {
+    return flatten;
+  }
+
+  /** @see JGitverUtils#shouldUseCache(MavenSession) */
+  public boolean shouldUseCache() {
+    return cache;
+  }
+
+  /** @see JGitverUtils#shouldUseMemoryCache(MavenSession) */
+  public boolean shouldUseMemoryCache() {
+    return memoryCache;
+  }
+
+  private Optional<String> resolve(String propertyName, Logger logger) {
+    return resolve(
+        propertyName, userProperties::get, envProperties::get, systemProperties::get, logger);
+  }
+
+  private boolean anyTrue(String propertyName) {
+    return Boolean.parseBoolean(systemProperties.get(propertyName))
+        || Boolean.parseBoolean(userProperties.get(propertyName));
+  }
+
+  /**
+   * Looks the given property up in the given sources, in order of precedence: user properties,
+   * environment properties then system properties, the exact name before its compliant alias.
+   */
+  static Optional<String> resolve(
+      String propertyName,
+      Function<String, String> user,
+      Function<String, String> env,
+      Function<String, String> system,
+      Logger logger) {
+    String alias = JGitverUtils.normalizeSystemPropertyName(propertyName);
+    String[] names = {propertyName, alias};
+    List<Function<String, String>> sources = Arrays.asList(user, env, system);
+    for (int source = 0; source < sources.size(); source++) {
+      for (String name : names) {
+        String value = sources.get(source).apply(name);
+        if (value != null) {
+          if (logger != null && logger.isDebugEnabled()) {
+            logger.debug(String.format("Found '%s'='%s' in %s", name, value, origin(source)));
+          }
+          return Optional.of(value);
+        }
+      }
+    }
+    return Optional.empty();
+  }
+
+  private static String origin(int source) {
+    switch (source) {
+      case 0:
+        return "user properties";
+      case 1:
+        return "system properties (as env property)";
+      default:
+        return "system properties (as system property)";
+    }
+  }
+
+  private static Map<String, String> jgitverEntries(Properties properties, String prefix) {
+    Map<String, String> entries = new HashMap<>();
+    String start = prefix + JGitverUtils.EXTENSION_PREFIX;
+    for (String key : properties.stringPropertyNames()) {
+      if (key.startsWith(start)) {
+        entries.put(key.substring(prefix.length()), properties.getProperty(key));
+      }
+    }
+    return entries;
+  }
+}
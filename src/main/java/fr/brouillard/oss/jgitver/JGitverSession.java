@@ -17,44 +17,94 @@ package fr.brouillard.oss.jgitver;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.StringWriter;
 import java.util.Collections;
-import java.util.LinkedHashSet;
+import java.util.Properties;
 import java.util.Set;
-import org.simpleframework.xml.*;
-import org.simpleframework.xml.convert.AnnotationStrategy;
-import org.simpleframework.xml.core.Persister;
-import org.simpleframework.xml.strategy.Strategy;
 
-@Root(name = "jgitver")
-@Default(DefaultType.FIELD)
 public class JGitverSession {
-  @Transient private JGitverInformationProvider calculator;
+  private static final String CODEC_HEADER = "jgitver-session/1";
+  private static final String NULL_VALUE = "\\0";
+
+  private JGitverInformationProvider calculator;
+
+  private JGitverInformationProvider computation;
+
+  private CanonicalPaths canonicalPaths = new CanonicalPaths();
+
+  private ModelCache models = new ModelCache();
+
+  private RawPoms rawPoms = new RawPoms();
+
+  private ReactorLocations reactorLocations;
+
+  private JGitverProperties properties;
+
+  private JGitverTimings timings = new JGitverTimings();
 
-  @Element(name = "calculatedVersion")
   private String version;
 
-  @Element(name = "multiModuleProjectDirectory")
   private File multiModuleDirectory;
 
-  @ElementList(name = "projects", entry = "gav")
-  private Set<GAV> projects = new LinkedHashSet<>();
+  private ProjectSet projects = new ProjectSet();
 
-  /* jaxb constructor */
+  /* decoding constructor */
   JGitverSession() {}
 
   /**
-   * Standard constructor using mandatory fields. The class does not use final attributes dues to
-   * its jaxb nature that requires an empty constructor.
+   * Standard constructor using mandatory fields. The class does not use final attributes as {@link
+   * #decode(String)} fills an empty instance.
    *
    * @param gitVersionCalculator the jgitver computation
    * @param multiModuleDirectory the base maven directory
    */
   public JGitverSession(
       JGitverInformationProvider gitVersionCalculator, File multiModuleDirectory) {
+    this(
+        gitVersionCalculator,
+        multiModuleDirectory,
+        JGitverProperties.of(new Properties(), new Properties(), null),
+        new JGitverTimings());
+  }
+
+  /**
+   * Standard constructor using mandatory fields and the state of the maven session.
+   *
+   * @param gitVersionCalculator the jgitver computation
+   * @param multiModuleDirectory the base maven directory
+   * @param properties the snapshot of the jgitver properties taken when the session started
+   * @param timings the timings of the stages run so far
+   */
+  public JGitverSession(
+      JGitverInformationProvider gitVersionCalculator,
+      File multiModuleDirectory,
+      JGitverProperties properties,
+      JGitverTimings timings) {
+    this(gitVersionCalculator, gitVersionCalculator, multiModuleDirectory, properties, timings);
+  }
+
+  /**
+   * Standard constructor using mandatory fields, the state of the maven session and the jgitver
+   * computation as it was before being overridden.
+   *
+   * @param gitVersionCalculator the jgitver computation used by the session
+   * @param computation the computed or imported jgitver computation, before any version override
+   * @param multiModuleDirectory the base maven directory
+   * @param properties the snapshot of the jgitver properties taken when the session started
+   * @param timings the timings of the stages run so far
+   */
+  public JGitverSession(
+      JGitverInformationProvider gitVersionCalculator,
+      JGitverInformationProvider computation,
+      File multiModuleDirectory,
+      JGitverProperties properties,
+      JGitverTimings timings) {
     this.version = gitVersionCalculator.getVersion();
     this.calculator = gitVersionCalculator;
+    this.computation = computation;
     this.multiModuleDirectory = multiModuleDirectory;
+    this.reactorLocations = new ReactorLocations(multiModuleDirectory);
+    this.properties = properties;
+    this.timings = timings;
   }
 
   public String getVersion() {
@@ -65,12 +115,87 @@ public class JGitverSession {
     return calculator;
   }
 
+  /**
+   * Provides the jgitver computation as it was computed or imported, ignoring the version forced by
+   * {@code jgitver.use-version}.
+   *
+   * @return the computation, null for a decoded session unless restored by {@link
+   *     JGitverSessionHandoff}
+   */
+  public JGitverInformationProvider getComputation() {
+    return computation;
+  }
+
+  void setComputation(JGitverInformationProvider computation) {
+    this.computation = computation;
+  }
+
   public File getMultiModuleDirectory() {
     return multiModuleDirectory;
   }
 
-  public void addProject(GAV project) {
-    projects.add(project);
+  /**
+   * Provides the snapshot of the jgitver properties taken when the maven session started.
+   *
+   * @return the properties, null for a decoded session
+   */
+  public JGitverProperties getProperties() {
+    return properties;
+  }
+
+  /**
+   * Provides the timings of the jgitver stages run during this session.
+   *
+   * @return non null thread safe timings
+   */
+  public JGitverTimings getTimings() {
+    return timings;
+  }
+
+  /**
+   * Provides the cache of canonical directories bound to this session.
+   *
+   * @return a non null thread safe cache
+   */
+  public CanonicalPaths getCanonicalPaths() {
+    return canonicalPaths;
+  }
+
+  /**
+   * Provides the classification of pom locations of this session.
+   *
+   * @return the reactor locations, null for a decoded session
+   */
+  public ReactorLocations getReactorLocations() {
+    return reactorLocations;
+  }
+
+  /**
+   * Provides the cache of provisioned models bound to this session.
+   *
+   * @return a non null thread safe cache
+   */
+  public ModelCache getModels() {
+    return models;
+  }
+
+  /**
+   * Provides the raw content of the reactor poms read during this session.
+   *
+   * @return a non null thread safe store
+   */
+  public RawPoms getRawPoms() {
+    return rawPoms;
+  }
+
+  /**
+   * Registers the given project, equal projects share the same instance.
+   *
+   * @param project the project to register
+   * @return the registered instance, the given one if the project was not already registered
+   */
+  public GAV addProject(GAV project) {
+    return projects.intern(project);
   }
 
   public Set<GAV> getProjects() {
@@ -78,31 +203,113 @@ public class JGitverSession {
   }
 
   /**
-   * Serializes as a String the given configuration object.
+   * Encodes the given session in a compact line oriented form: a header, the calculated version,
+   * the multi module directory and one tab separated line per project.
    *
-   * @param session the object to serialize
-   * @return a non null String representation of the given object serialized
-   * @throws IOException if the serialized form cannot be written
-   * @see JGitverSession#serializeFrom(String)
+   * @param session the session to encode
+   * @return a non null String representation of the given session
+   * @see JGitverSession#decode(String)
    */
-  public static String serializeTo(JGitverSession session) throws Exception {
-    Strategy strategy = new AnnotationStrategy();
-    Serializer serializer = new Persister(strategy);
-    StringWriter sw = new StringWriter();
-    serializer.write(session, sw);
-    return sw.toString();
+  public static String encode(JGitverSession session) {
+    StringBuilder sb = new StringBuilder(64 + 64 * session.projects.size());
+    sb.append(CODEC_HEADER).append('\n');
+    escape(sb, session.version).append('\n');
+    escape(sb, session.multiModuleDirectory == null ? null : session.multiModuleDirectory.getPath())
+        .append('\n');
+    for (GAV gav : session.projects) {
+      escape(sb, gav.getGroupId()).append('\t');
+      escape(sb, gav.getArtifactId()).append('\t');
+      escape(sb, gav.getVersion()).append('\n');
+    }
+    return sb.toString();
   }
 
   /**
-   * De-serializes the given string as a {@link JGitverSession}.
+   * Decodes a session encoded by {@link #encode(JGitverSession)}.
    *
-   * @param content the string to de-serialize
-   * @return a non null configuration object
-   * @throws Exception if the given string could not be interpreted by simplexml
+   * @param content the encoded session
+   * @return a non null session
+   * @throws IOException if the given content is not an encoded session
    */
-  public static JGitverSession serializeFrom(String content) throws Exception {
-    Strategy strategy = new AnnotationStrategy();
-    Serializer serializer = new Persister(strategy);
-    return serializer.read(JGitverSession.class, content);
+  public static JGitverSession decode(String content) throws IOException {
+    String[] lines = content.split("\n", -1);
+    if (lines.length < 4 || !CODEC_HEADER.equals(lines[0])) {
+      throw new IOException("cannot decode jgitver session, unknown format");
+    }
+
+    JGitverSession session = new JGitverSession();
+    session.version = unescape(lines[1]);
+    String multiModuleDirectory = unescape(lines[2]);
+    session.multiModuleDirectory =
+        multiModuleDirectory == null ? null : new File(multiModuleDirectory);
+    // the content ends with a line feed, the last element is always empty
+    for (int i = 3; i < lines.length - 1; i++) {
+      String[] gav = lines[i].split("\t", -1);
+      if (gav.length != 3) {
+        throw new IOException("cannot decode jgitver session, invalid project: " + lines[i]);
+      }
+      session.projects.add(new GAV(unescape(gav[0]), unescape(gav[1]), unescape(gav[2])));
+    }
+    return session;
+  }
+
+  private static StringBuilder escape(StringBuilder sb, String value) {
+    if (value == null) {
+      return sb.append(NULL_VALUE);
+    }
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '\\':
+          sb.append("\\\\");
+          break;
+        case '\t':
+          sb.append("\\t");
+          break;
+        case '\n':
+          sb.append("\\n");
+          break;
+        case '\r':
+          sb.append("\\r");
+          break;
+        default:
+          sb.append(c);
+      }
+    }
+    return sb;
+  }
+
+  private static String unescape(String value) throws IOException {
+    if (NULL_VALUE.equals(value)) {
+      return null;
+    }
+    if (value.indexOf('\\') < 0) {
+      return value;
+    }
+    StringBuilder sb = new StringBuilder(value.length());
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c != '\\') {
+        sb.append(c);
+        continue;
+      }
+      if (++i == value.length()) {
+        throw new IOException("cannot decode jgitver session, invalid escape: " + value);
+      }
+      switch (value.charAt(i)) {
+        case 't':
+          sb.append('\t');
+          break;
+        case 'n':
+          sb.append('\n');
+          break;
+        case 'r':
+          sb.append('\r');
+          break;
+        default:
+          sb.append(value.charAt(i));
+      }
+    }
+    return sb.toString();
   }
 }
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver;
+
+import fr.brouillard.oss.jgitver.JGitverTimings.Stage;
+import fr.brouillard.oss.jgitver.cache.VersionFiles;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import org.apache.maven.execution.MavenSession;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+
+/**
+ * Hands the {@link JGitverSession} over from the extension to the mojos, through the data of the
+ * repository session bound to the {@link MavenSession}.
+ *
+ * <p>The stored object is only shared as is when the mojo sees the same classes as the extension.
+ * When the mojo lives in another class realm, it reads the session through the {@link Supplier}
+ * interface of the stored object, which provides the compact encoding of {@link
+ * JGitverSession#encode(JGitverSession)}.
+ */
+public final class JGitverSessionHandoff {
+  private static final String SESSION_KEY = JGitverUtils.SESSION_MAVEN_PROPERTIES_KEY;
+  private static final String ATTACHED_KEY = SESSION_KEY + ".attached";
+  private static final String TIMINGS_KEY = SESSION_KEY + ".timings";
+  private static final String COMPUTATION_KEY = SESSION_KEY + ".computation";
+
+  private JGitverSessionHandoff() {}
+
+  /**
+   * Publishes the given session for the mojos of the given maven session. Projects registered
+   * afterwards are visible to the mojos.
+   *
+   * @param mavenSession the running maven session
+   * @param jgitverSession the session to publish
+   */
+  public static void publish(MavenSession mavenSession, JGitverSession jgitverSession) {
+    data(mavenSession)
+        .ifPresent(
+            data -> {
+              data.set(SESSION_KEY, new Handoff(jgitverSession));
+              data.set(TIMINGS_KEY, jgitverSession.getTimings());
+              JGitverInformationProvider computation = jgitverSession.getComputation();
+              if (computation != null) {
+                // encoded on demand, as it is only needed to export the computation
+                Supplier<Properties> encoded = () -> VersionFiles.encode(computation);
+                data.set(COMPUTATION_KEY, encoded);
+              }
+            });
+  }
+
+  /**
+   * Provides the session published for the given maven session. A session published by another
+   * class realm is decoded, its {@link JGitverSession#getComputation() computation} is restored but
+   * it has no calculator.
+   *
+   * @param mavenSession the running maven session
+   * @return the published session, empty if none has been published
+   * @throws IOException if the session published by another class realm cannot be decoded
+   */
+  public static Optional<JGitverSession> lookup(MavenSession mavenSession) throws IOException {
+    Optional<Object> published = data(mavenSession).map(data -> data.get(SESSION_KEY));
+    if (!published.isPresent()) {
+      return Optional.empty();
+    }
+
+    Object handoff = published.get();
+    if (handoff instanceof Handoff) {
+      return Optional.of(((Handoff) handoff).session);
+    }
+    if (handoff instanceof Supplier) {
+      Object encoded = ((Supplier<?>) handoff).get();
+      if (encoded instanceof String) {
+        JGitverSession session = JGitverSession.decode((String) encoded);
+        session.setComputation(computation(mavenSession).orElse(null));
+        return Optional.of(session);
+      }
+    }
+    throw new IOException("unexpected jgitver session " + handoff.getClass().getName());
+  }
+
+  private static Optional<JGitverInformationProvider> computation(MavenSession mavenSession) {
+    return data(mavenSession)
+        .map(data -> data.get(COMPUTATION_KEY))
+        .filter(Supplier.class::isInstance)
+        .map(supplier -> ((Supplier<?>) supplier).get())
+        .filter(Properties.class::isInstance)
+        .flatMap(encoded -> VersionFiles.decode((Properties) encoded));
+  }
+
+  /**
+   * Tells if the modified poms of the given maven session have already been attached.
+   *
+   * @param mavenSession the running maven session
+   * @return true once {@link #markAttached(MavenSession)} has been called
+   */
+  public static boolean isAttached(MavenSession mavenSession) {
+    return data(mavenSession).map(data -> data.get(ATTACHED_KEY)).isPresent();
+  }
+
+  public static void markAttached(MavenSession mavenSession) {
+    data(mavenSession).ifPresent(data -> data.set(ATTACHED_KEY, Boolean.TRUE));
+  }
+
+  /**
+   * Records the duration of a stage run by a mojo into the timings of the published session, the
+   * timings are reached through the {@link BiConsumer} interface whatever the class realm.
+   *
+   * @param mavenSession the running maven session
+   * @param stage the executed stage
+   * @param startNanos the start of the execution, as given by {@link System#nanoTime()}
+   */
+  @SuppressWarnings("unchecked")
+  public static void recordTiming(MavenSession mavenSession, Stage stage, long startNanos) {
+    long duration = System.nanoTime() - startNanos;
+    data(mavenSession)
+        .map(data -> data.get(TIMINGS_KEY))
+        .filter(BiConsumer.class::isInstance)
+        .ifPresent(
+            timings -> ((BiConsumer<String, Long>) timings).accept(stage.getKey(), duration));
+  }
+
+  /**
+   * Removes any published data from the given maven session.
+   *
+   * @param mavenSession the ending maven session
+   */
+  public static void clear(MavenSession mavenSession) {
+    data(mavenSession)
+        .ifPresent(
+            data -> {
+              data.set(SESSION_KEY, null);
+              data.set(ATTACHED_KEY, null);
+              data.set(TIMINGS_KEY, null);
+              data.set(COMPUTATION_KEY, null);
+            });
+  }
+
+  private static Optional<SessionData> data(MavenSession mavenSession) {
+    return Optional.ofNullable(mavenSession.getRepositorySession())
+        .map(RepositorySystemSession::getData);
+  }
+
+  private static final class Handoff implements Supplier<String> {
+    private final JGitverSession session;
+
+    private Handoff(JGitverSession session) {
+      this.session = session;
+    }
+
+    @Override
+    public String get() {
+      long start = System.nanoTime();
+      String encoded = JGitverSession.encode(session);
+      session.getTimings().recordSince(Stage.SESSION_SERIALIZATION, start);
+      return encoded;
+    }
+  }
+}
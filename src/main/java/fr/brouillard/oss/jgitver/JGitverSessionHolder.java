@@ -20,7 +20,7 @@ import org.codehaus.plexus.component.annotations.Component;
 
 @Component(role = JGitverSessionHolder.class, instantiationStrategy = "singleton")
 public class JGitverSessionHolder {
-  private JGitverSession session = null;
+  private volatile JGitverSession session = null;
 
   public void setSession(JGitverSession session) {
     this.session = session;
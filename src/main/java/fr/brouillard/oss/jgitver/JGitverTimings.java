@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiConsumer;
+
+/**
+ * Accumulates the time spent by jgitver in each of its stages during a maven session.
+ *
+ * <p>Stages run several times, like the model provisioning, are counted and summed. The class is
+ * thread safe. It implements {@link BiConsumer} so that mojos living in another class realm can
+ * record a stage by its key and a duration in nanoseconds.
+ */
+public final class JGitverTimings implements BiConsumer<String, Long> {
+  /** The instrumented stages, in execution order. */
+  public enum Stage {
+    CONFIGURATION("configuration"),
+    DIRTY_CHECK("dirty-check"),
+    CACHE_KEY("cache-key"),
+    REPOSITORY_OPEN("repository-open"),
+    /** Tags enumeration and commit walk, both done by jgitver when the version is requested. */
+    VERSION_COMPUTATION("version-computation"),
+    METADATA("metadata"),
+    MODEL_PROVISION("model-provision"),
+    SESSION_SERIALIZATION("session-serialization"),
+    POM_ATTACH("pom-attach");
+
+    private final String key;
+
+    Stage(String key) {
+      this.key = key;
+    }
+
+    public String getKey() {
+      return key;
+    }
+  }
+
+  private final AtomicLongArray counts = new AtomicLongArray(Stage.values().length);
+  private final AtomicLongArray nanos = new AtomicLongArray(Stage.values().length);
+
+  /**
+   * Records an execution of the given stage.
+   *
+   * @param stage the executed stage
+   * @param durationNanos the duration of the execution in nanoseconds
+   */
+  public void record(Stage stage, long durationNanos) {
+    counts.incrementAndGet(stage.ordinal());
+    nanos.addAndGet(stage.ordinal(), durationNanos);
+  }
+
+  /**
+   * Records an execution of the given stage that started at the given time.
+   *
+   * @param stage the executed stage
+   * @param startNanos the start of the execution, as given by {@link System#nanoTime()}
+   */
+  public void recordSince(Stage stage, long startNanos) {
+    record(stage, System.nanoTime() - startNanos);
+  }
+
+  /**
+   * Records an execution of the stage having the given key, unknown keys are ignored.
+   *
+   * @param stageKey the key of the executed stage
+   * @param durationNanos the duration of the execution in nanoseconds
+   */
+  @Override
+  public void accept(String stageKey, Long durationNanos) {
+    for (Stage stage : Stage.values()) {
+      if (stage.key.equals(stageKey)) {
+        record(stage, durationNanos);
+        return;
+      }
+    }
+  }
+
+  public long count(Stage stage) {
+    return counts.get(stage.ordinal());
+  }
+
+  public long nanos(Stage stage) {
+    return nanos.get(stage.ordinal());
+  }
+
+  /**
+   * Provides the one line summary of the recorded stages.
+   *
+   * @return a non null summary, for example {@code jgitver timings: configuration 3 ms,
+   *     model-provision 12 ms (24 calls), total 15 ms}
+   */
+  public String summary() {
+    StringBuilder sb = new StringBuilder("jgitver timings: ");
+    long total = 0;
+    for (Stage stage : Stage.values()) {
+      long count = count(stage);
+      if (count == 0) {
+        continue;
+      }
+      total += nanos(stage);
+      sb.append(stage.key).append(' ').append(millis(nanos(stage))).append(" ms");
+      if (count > 1) {
+        sb.append(" (").append(count).append(" calls)");
+      }
+      sb.append(", ");
+    }
+    return sb.append("total ").append(millis(total)).append(" ms").toString();
+  }
+
+  /**
+   * Provides the machine readable report of the recorded stages, every stage is listed even if it
+   * did not run.
+   *
+   * @param version the version published by jgitver
+   * @return a JSON document
+   */
+  public String toJson(String version) {
+    StringBuilder sb = new StringBuilder("{\n");
+    sb.append("  \"plugin\": ");
+    appendJsonString(sb, JGitverMavenPluginProperties.getVersion()).append(",\n");
+    sb.append("  \"version\": ");
+    appendJsonString(sb, version).append(",\n");
+    sb.append("  \"stages\": {\n");
+    long total = 0;
+    Stage[] stages = Stage.values();
+    for (int i = 0; i < stages.length; i++) {
+      Stage stage = stages[i];
+      total += nanos(stage);
+      sb.append("    ");
+      appendJsonString(sb, stage.key);
+      sb.append(
+          String.format(
+              Locale.ROOT,
+              ": {\"count\": %d, \"nanos\": %d, \"millis\": %.3f}",
+              count(stage),
+              nanos(stage),
+              nanos(stage) / 1e6));
+      sb.append(i < stages.length - 1 ? ",\n" : "\n");
+    }
+    sb.append("  },\n");
+    sb.append(String.format(Locale.ROOT, "  \"totalMillis\": %.3f\n", total / 1e6));
+    return sb.append("}\n").toString();
+  }
+
+  /**
+   * Writes the machine readable report to the given file, parent directories are created.
+   *
+   * @param file the report file
+   * @param version the version published by jgitver
+   * @throws IOException if the report cannot be written
+   */
+  public void write(File file, String version) throws IOException {
+    Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+    Files.write(file.toPath(), toJson(version).getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static long millis(long nanos) {
+    return TimeUnit.NANOSECONDS.toMillis(nanos);
+  }
+
+  private static StringBuilder appendJsonString(StringBuilder sb, String value) {
+    if (value == null) {
+      return sb.append("null");
+    }
+    sb.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        sb.append('\\').append(c);
+      } else if (c < 0x20) {
+        sb.append(String.format("\\u%04x", (int) c));
+      } else {
+        sb.append(c);
+      }
+    }
+    return sb.append('"');
+  }
+}
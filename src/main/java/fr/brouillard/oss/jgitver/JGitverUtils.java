@@ -15,23 +15,44 @@
  */
 package fr.brouillard.oss.jgitver;
 
+import fr.brouillard.oss.jgitver.jfr.JGitverEvents;
+import fr.brouillard.oss.jgitver.jfr.JGitverEvents.Span;
 import fr.brouillard.oss.jgitver.metadata.Metadatas;
+import fr.brouillard.oss.jgitver.pom.PomPatcher;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StringWriter;
 import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.maven.MavenExecutionException;
 import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Build;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.model.Model;
 import org.apache.maven.model.Plugin;
@@ -50,8 +71,19 @@ public final class JGitverUtils {
   public static final String EXTENSION_FORCE_COMPUTATION = EXTENSION_PREFIX + ".forceComputation";
   public static final String EXTENSION_FLATTEN = EXTENSION_PREFIX + ".flatten";
   public static final String EXTENSION_USE_VERSION = EXTENSION_PREFIX + ".use-version";
+  public static final String EXTENSION_CACHE = EXTENSION_PREFIX + ".cache";
+  public static final String EXTENSION_MEMORY_CACHE = EXTENSION_PREFIX + ".memory-cache";
+  public static final String EXTENSION_METADATAS = EXTENSION_PREFIX + ".metadatas";
+  public static final String EXTENSION_IMPORT = EXTENSION_PREFIX + ".import";
+  public static final String EXTENSION_TIMINGS = EXTENSION_PREFIX + ".timings";
   public static final String SESSION_MAVEN_PROPERTIES_KEY = EXTENSION_PREFIX + ".session";
   public static final String PROJECT_VERSION = "${project.version}";
+  /** Project context value holding the raw pom content as a read only {@link ByteBuffer}. */
+  public static final String RAW_POM_CONTEXT_KEY = EXTENSION_PREFIX + ".raw-pom";
+
+  public static final int POM_REWRITE_DEFAULT_THREADS = 0;
+  private static final String POM_DUMP_DIRECTORY = "jgitver";
+  private static final String POM_DUMP_FILE = "pom.xml";
 
   public interface CLI {
     String OVERRIDE_CONFIG_FILE = EXTENSION_PREFIX + ".config";
@@ -74,15 +106,41 @@ public final class JGitverUtils {
   }
 
   /**
-   * Creates temporary file to save updated pom mode.
+   * Provides the file under which the updated pom of the given project is written: {@code
+   * jgitver/pom.xml} under the build directory of the project.
    *
+   * @param project project.
    * @return File.
-   * @throws IOException IOException.
    */
-  public static File createPomDumpFile() throws IOException {
-    File tmp = File.createTempFile("pom", ".jgitver-maven-plugin.xml");
-    tmp.deleteOnExit();
-    return tmp;
+  public static File pomDumpFile(MavenProject project) {
+    File buildDirectory =
+        Optional.ofNullable(project.getBuild())
+            .map(Build::getDirectory)
+            .map(File::new)
+            .orElseGet(() -> new File(project.getBasedir(), "target"));
+    return new File(new File(buildDirectory, POM_DUMP_DIRECTORY), POM_DUMP_FILE);
+  }
+
+  /**
+   * Deletes the updated pom files left by previous sessions for projects whose pom file has not
+   * been replaced during the current session. To be used only when the current session does not
+   * attach modified poms: a session stopped before the attachment leaves valid files behind.
+   *
+   * @param projects the projects of the session
+   * @param logger logger
+   */
+  public static void deleteStalePomDumpFiles(List<MavenProject> projects, Logger logger) {
+    for (MavenProject project : projects) {
+      File pomDumpFile = pomDumpFile(project);
+      if (!pomDumpFile.equals(project.getFile()) && pomDumpFile.isFile()) {
+        try {
+          Files.deleteIfExists(pomDumpFile.toPath());
+          logger.debug("    stale pom file " + pomDumpFile + " deleted");
+        } catch (IOException ex) {
+          logger.warn("cannot delete stale pom file " + pomDumpFile, ex);
+        }
+      }
+    }
   }
 
   /**
@@ -151,22 +209,101 @@ public final class JGitverUtils {
    */
   public static void fillPropertiesFromMetadatas(
       Properties properties, JGitverInformationProvider informationProvider, Logger logger) {
+    fillPropertiesFromMetadatas(
+        properties, informationProvider, EnumSet.allOf(Metadatas.class), logger);
+  }
+
+  /**
+   * Fill properties from the given subset of meta data, only those metadatas are queried on the
+   * information provider.
+   *
+   * @param properties properties.
+   * @param informationProvider the jgitver to extract information from.
+   * @param metadatas the metadatas to publish as properties.
+   * @param logger logger.
+   */
+  public static void fillPropertiesFromMetadatas(
+      Properties properties,
+      JGitverInformationProvider informationProvider,
+      Set<Metadatas> metadatas,
+      Logger logger) {
     String calculatedVersion = informationProvider.getVersion();
     logger.debug(EXTENSION_PREFIX + " calculated version number: " + calculatedVersion);
     properties.put(EXTENSION_PREFIX + ".used_version", calculatedVersion);
 
     properties.put(EXTENSION_PREFIX + ".plugin-version", JGitverMavenPluginProperties.getVersion());
 
-    Arrays.asList(Metadatas.values()).stream()
-        .forEach(
-            metaData -> {
-              Optional<String> metaValue = informationProvider.meta(metaData);
-              String propertyName =
-                  EXTENSION_PREFIX + "." + metaData.name().toLowerCase(Locale.ENGLISH);
-              String value = metaValue.orElse("");
-              properties.put(propertyName, value);
-              logger.debug("setting property " + propertyName + " with \"" + value + "\"");
-            });
+    boolean debug = logger.isDebugEnabled();
+    for (Metadatas metaData : metadatas) {
+      String propertyName = metadataPropertyName(metaData);
+      String value = informationProvider.meta(metaData).orElse("");
+      properties.put(propertyName, value);
+      if (debug) {
+        logger.debug("setting property " + propertyName + " with \"" + value + "\"");
+      }
+    }
+  }
+
+  /**
+   * Provides the name of the property exposing the given metadata.
+   *
+   * @param metaData the metadata
+   * @return the property name, for example {@code jgitver.calculated_version}
+   */
+  public static String metadataPropertyName(Metadatas metaData) {
+    return EXTENSION_PREFIX + "." + metaData.name().toLowerCase(Locale.ENGLISH);
+  }
+
+  /**
+   * Provides the metadatas to expose as properties, all by default. The list can be restricted with
+   * a comma separated list of metadata names, case insensitive
+   *
+   * <pre>
+   *     mvn -Djgitver.metadatas=calculated_version,git_sha1_8
+   * </pre>
+   *
+   * @param session a running maven session
+   * @param logger logger
+   * @return the non empty set of metadatas to expose
+   * @throws MavenExecutionException if an unknown metadata name is given
+   */
+  public static Set<Metadatas> metadatasToPublish(MavenSession session, Logger logger)
+      throws MavenExecutionException {
+    return metadatasToPublish(getProperty(session, EXTENSION_METADATAS, logger));
+  }
+
+  /**
+   * Provides the metadatas to expose as properties from the given snapshot of the session
+   * properties, see {@link #metadatasToPublish(MavenSession, Logger)}.
+   *
+   * @param properties the jgitver properties of a running maven session
+   * @return the non empty set of metadatas to expose
+   * @throws MavenExecutionException if an unknown metadata name is given
+   */
+  public static Set<Metadatas> metadatasToPublish(JGitverProperties properties)
+      throws MavenExecutionException {
+    return metadatasToPublish(properties.get(EXTENSION_METADATAS));
+  }
+
+  private static Set<Metadatas> metadatasToPublish(Optional<String> selection)
+      throws MavenExecutionException {
+    if (!selection.isPresent() || StringUtils.isBlank(selection.get())) {
+      return EnumSet.allOf(Metadatas.class);
+    }
+
+    Set<Metadatas> metadatas = EnumSet.noneOf(Metadatas.class);
+    for (String name : selection.get().split(",")) {
+      if (StringUtils.isBlank(name)) {
+        continue;
+      }
+      try {
+        metadatas.add(Metadatas.valueOf(name.trim().toUpperCase(Locale.ENGLISH)));
+      } catch (IllegalArgumentException ex) {
+        throw new MavenExecutionException(
+            "unknown metadata '" + name.trim() + "' in " + EXTENSION_METADATAS, ex);
+      }
+    }
+    return metadatas.isEmpty() ? EnumSet.allOf(Metadatas.class) : metadatas;
   }
 
   /**
@@ -186,39 +323,242 @@ public final class JGitverUtils {
       Boolean resolveProjectVersion,
       Logger logger)
       throws IOException, XmlPullParserException {
+    attachModifiedPomFilesToTheProject(
+        projects, gavs, version, resolveProjectVersion, logger, POM_REWRITE_DEFAULT_THREADS);
+  }
+
+  /**
+   * Attach modified POM files to the projects so install/deployed files contains new version.
+   *
+   * <p>Poms are rewritten concurrently, the rewritten files are then set on the projects
+   * sequentially, in the order of the given projects.
+   *
+   * @param projects projects.
+   * @param gavs list of registered GAVs of modified projects.
+   * @param version the version to set
+   * @param logger the logger to report to
+   * @param threads the maximum number of poms rewritten concurrently, 0 or less to use the number
+   *     of available processors
+   * @throws IOException if project model cannot be read correctly
+   * @throws XmlPullParserException if project model cannot be interpreted correctly
+   */
+  public static void attachModifiedPomFilesToTheProject(
+      List<MavenProject> projects,
+      Set<GAV> gavs,
+      String version,
+      Boolean resolveProjectVersion,
+      Logger logger,
+      int threads)
+      throws IOException, XmlPullParserException {
+    PomPatcher patcher = new PomPatcher(gavs, version, resolveProjectVersion);
+    List<Callable<File>> rewrites = new ArrayList<>(projects.size());
     for (MavenProject project : projects) {
-      Model model = loadInitialModel(project.getFile());
-      GAV initalProjectGAV = GAV.from(model); // SUPPRESS CHECKSTYLE AbbreviationAsWordInName
+      rewrites.add(
+          () -> rewritePom(project, patcher, gavs, version, resolveProjectVersion, logger));
+    }
 
-      logger.debug("about to change file pom for: " + initalProjectGAV);
+    List<File> newPoms = invokeAll(rewrites, threads);
 
-      if (gavs.contains(initalProjectGAV)) {
-        model.setVersion(version);
+    for (int i = 0; i < projects.size(); i++) {
+      setProjectPomFile(projects.get(i), newPoms.get(i), logger);
+      logger.debug("    pom file set for " + projects.get(i).getId());
+    }
+  }
 
-        if (model.getScm() != null && project.getModel().getScm() != null) {
-          model.getScm().setTag(project.getModel().getScm().getTag());
-        }
+  private static File rewritePom(
+      MavenProject project,
+      PomPatcher patcher,
+      Set<GAV> gavs,
+      String version,
+      Boolean resolveProjectVersion,
+      Logger logger)
+      throws IOException, XmlPullParserException {
+    Span event = JGitverEvents.pomRewrite(project.getFile()).version(version);
+    try {
+      boolean written = writePom(project, patcher, gavs, version, resolveProjectVersion, logger);
+      event.cacheHit(!written);
+    } finally {
+      event.finish();
+    }
+    return pomDumpFile(project);
+  }
+
+  /** @return true if the pom file has been written, false if it was already up to date */
+  private static boolean writePom(
+      MavenProject project,
+      PomPatcher patcher,
+      Set<GAV> gavs,
+      String version,
+      Boolean resolveProjectVersion,
+      Logger logger)
+      throws IOException, XmlPullParserException {
+    File newPom = pomDumpFile(project);
+    byte[] rawPom = rawPom(project);
+    Optional<byte[]> patched = patcher.patch(rawPom, project.getModel().getScm());
+    if (patched.isPresent()) {
+      boolean written = writeIfChanged(newPom, patched.get());
+      logger.debug(
+          "    pom file "
+              + project.getFile()
+              + (written ? " patched under " : " unchanged under ")
+              + newPom);
+      return written;
+    }
+
+    // the pom cannot be patched in place, it is rewritten from its model
+    Model model = new MavenXpp3Reader().read(new ByteArrayInputStream(rawPom));
+    GAV initalProjectGAV = GAV.from(model); // SUPPRESS CHECKSTYLE AbbreviationAsWordInName
+
+    logger.debug("about to change file pom for: " + initalProjectGAV);
+
+    if (gavs.contains(initalProjectGAV)) {
+      model.setVersion(version);
+
+      if (model.getScm() != null && project.getModel().getScm() != null) {
+        model.getScm().setTag(project.getModel().getScm().getTag());
       }
+    }
 
-      if (model.getParent() != null) {
-        GAV parentGAV = GAV.from(model.getParent()); // SUPPRESS CHECKSTYLE AbbreviationAsWordInName
+    if (model.getParent() != null) {
+      GAV parentGAV = GAV.from(model.getParent()); // SUPPRESS CHECKSTYLE AbbreviationAsWordInName
 
-        if (gavs.contains(parentGAV)) {
-          // parent has been modified
-          model.getParent().setVersion(version);
-        }
+      if (gavs.contains(parentGAV)) {
+        // parent has been modified
+        model.getParent().setVersion(version);
       }
+    }
+
+    if (resolveProjectVersion) {
+      resolveProjectVersionVariable(version, model);
+    }
+
+    StringWriter content = new StringWriter();
+    new MavenXpp3Writer().write(content, model);
+    boolean written = writeIfChanged(newPom, content.toString().getBytes(Charset.defaultCharset()));
+    logger.debug(
+        "    "
+            + (written ? "new pom file created for " : "pom file unchanged for ")
+            + initalProjectGAV
+            + " under "
+            + newPom);
+    return written;
+  }
+
+  /**
+   * Provides the content of the pom of the given project, as read by the model processor when
+   * available.
+   */
+  private static byte[] rawPom(MavenProject project) throws IOException {
+    Object content = project.getContextValue(RAW_POM_CONTEXT_KEY);
+    if (content instanceof ByteBuffer) {
+      ByteBuffer buffer = ((ByteBuffer) content).duplicate();
+      byte[] bytes = new byte[buffer.remaining()];
+      buffer.get(bytes);
+      return bytes;
+    }
+    return Files.readAllBytes(project.getFile().toPath());
+  }
+
+  /**
+   * Writes the given content unless the file already holds it, so that the file and its
+   * modification time stay untouched from one build to the other.
+   *
+   * @return true if the file has been written
+   */
+  private static boolean writeIfChanged(File file, byte[] content) throws IOException {
+    Path path = file.toPath();
+    if (Files.isRegularFile(path)
+        && Files.size(path) == content.length
+        && Arrays.equals(Files.readAllBytes(path), content)) {
+      return false;
+    }
 
-      if (resolveProjectVersion) {
-        resolveProjectVersionVariable(version, model);
+    Path directory = Files.createDirectories(path.toAbsolutePath().getParent());
+    Path tmp = Files.createTempFile(directory, POM_DUMP_FILE, ".tmp");
+    try {
+      Files.write(tmp, content);
+      Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+    return true;
+  }
+
+  /**
+   * Executes the given tasks on a bounded pool, using virtual threads when the JDK provides them.
+   *
+   * @return the results in the order of the tasks
+   */
+  private static <T> List<T> invokeAll(List<Callable<T>> tasks, int threads)
+      throws IOException, XmlPullParserException {
+    int poolSize =
+        Math.min(tasks.size(), threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+    List<T> results = new ArrayList<>(tasks.size());
+
+    if (poolSize <= 1) {
+      for (Callable<T> task : tasks) {
+        results.add(call(task::call));
       }
+      return results;
+    }
 
-      File newPom = createPomDumpFile();
-      writeModelPom(model, newPom);
-      logger.debug("    new pom file created for " + initalProjectGAV + " under " + newPom);
+    ExecutorService pool = Executors.newFixedThreadPool(poolSize, pomRewriteThreadFactory());
+    try {
+      List<Future<T>> futures = new ArrayList<>(tasks.size());
+      for (Callable<T> task : tasks) {
+        futures.add(pool.submit(task));
+      }
+      for (Future<T> future : futures) {
+        results.add(call(future::get));
+      }
+      return results;
+    } finally {
+      pool.shutdownNow();
+    }
+  }
 
-      setProjectPomFile(project, newPom, logger);
-      logger.debug("    pom file set");
+  private static <T> T call(Callable<T> callable) throws IOException, XmlPullParserException {
+    try {
+      return callable.call();
+    } catch (ExecutionException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof XmlPullParserException) {
+        throw (XmlPullParserException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IOException(cause);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted while rewriting poms");
+    } catch (IOException | XmlPullParserException | RuntimeException ex) {
+      throw ex;
+    } catch (Exception ex) {
+      throw new IOException(ex);
+    }
+  }
+
+  private static ThreadFactory pomRewriteThreadFactory() {
+    try {
+      // virtual threads are only available starting with java 21 while the plugin targets java 8
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+      builder =
+          builderType
+              .getMethod("name", String.class, long.class)
+              .invoke(builder, "jgitver-pom-rewrite-", 0L);
+      return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+    } catch (ReflectiveOperationException | RuntimeException ex) {
+      AtomicInteger counter = new AtomicInteger();
+      return runnable -> {
+        Thread thread = new Thread(runnable, "jgitver-pom-rewrite-" + counter.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+      };
     }
   }
 
@@ -359,6 +699,45 @@ public final class JGitverUtils {
             session.getUserProperties().getProperty(EXTENSION_FLATTEN, "false"));
   }
 
+  /**
+   * Tells if the computed version should be cached on disk and reused by following builds as long
+   * as the repository state and the configuration do not change. To activate the cache
+   *
+   * <pre>
+   *     mvn -Djgitver.cache=true/false
+   * </pre>
+   *
+   * The value of the property is evaluated using @{@link java.lang.Boolean#parseBoolean(String)}.
+   *
+   * @param session a running maven session
+   * @return true if jgitver extension should use the version cache
+   */
+  public static boolean shouldUseCache(MavenSession session) {
+    return Boolean.parseBoolean(session.getSystemProperties().getProperty(EXTENSION_CACHE, "false"))
+        || Boolean.parseBoolean(session.getUserProperties().getProperty(EXTENSION_CACHE, "false"));
+  }
+
+  /**
+   * Tells if the computed version should be kept in memory and reused by the following builds run
+   * by the same JVM (maven daemon, embedded maven). A command line build runs in a fresh JVM where
+   * the cache can never hit, so it is only used on demand, to activate it
+   *
+   * <pre>
+   *     mvn -Djgitver.memory-cache=true/false
+   * </pre>
+   *
+   * The value of the property is evaluated using @{@link java.lang.Boolean#parseBoolean(String)}.
+   *
+   * @param session a running maven session
+   * @return true if jgitver extension should use the in memory version cache
+   */
+  public static boolean shouldUseMemoryCache(MavenSession session) {
+    return Boolean.parseBoolean(
+            session.getSystemProperties().getProperty(EXTENSION_MEMORY_CACHE, "false"))
+        || Boolean.parseBoolean(
+            session.getUserProperties().getProperty(EXTENSION_MEMORY_CACHE, "false"));
+  }
+
   /**
    * Provides the version to use if defined as user or system property.
    *
@@ -371,6 +750,19 @@ public final class JGitverUtils {
     return getProperty(session, EXTENSION_USE_VERSION, logger);
   }
 
+  /**
+   * Provides the file to import the version and metadatas from, instead of computing them, if
+   * defined as user or system property.
+   *
+   * @param session a running maven session
+   * @param logger logger
+   * @return an Optional containing the path of the file written by the export goal if the
+   *     corresponding user or system property has been defined
+   */
+  public static Optional<String> importFile(final MavenSession session, final Logger logger) {
+    return getProperty(session, EXTENSION_IMPORT, logger);
+  }
+
   /**
    * Tries to get the property from the user properties ({@link MavenSession#getUserProperties()})
    * or from the system properties ({@link MavenSession#getSystemProperties()}).
@@ -389,59 +781,14 @@ public final class JGitverUtils {
    */
   public static Optional<String> getProperty(
       final MavenSession session, final String propertyName, final Logger logger) {
-    final String normalizedSystemPropertyName = normalizeSystemPropertyName(propertyName);
-
-    String value;
-
-    value = session.getUserProperties().getProperty(propertyName);
-    if (value != null) {
-      logger.debug(String.format("Found '%s'='%s' in user properties", propertyName, value));
-      return Optional.of(value);
-    }
-
-    value = session.getUserProperties().getProperty(normalizedSystemPropertyName);
-    if (value != null) {
-      logger.debug(
-          String.format("Found '%s'='%s' in user properties", normalizedSystemPropertyName, value));
-      return Optional.of(value);
-    }
-
-    final String envPrefix = "env.";
-    value = session.getSystemProperties().getProperty(envPrefix + propertyName);
-    if (value != null) {
-      logger.debug(
-          String.format(
-              "Found '%s'='%s' in system properties (as env property)", propertyName, value));
-      return Optional.of(value);
-    }
-
-    value = session.getSystemProperties().getProperty(envPrefix + normalizedSystemPropertyName);
-    if (value != null) {
-      logger.debug(
-          String.format(
-              "Found '%s'='%s' in system properties (as env property)",
-              normalizedSystemPropertyName, value));
-      return Optional.of(value);
-    }
-
-    value = session.getSystemProperties().getProperty(propertyName);
-    if (value != null) {
-      logger.debug(
-          String.format(
-              "Found '%s'='%s' in system properties (as system property)", propertyName, value));
-      return Optional.of(value);
-    }
-
-    value = session.getSystemProperties().getProperty(normalizedSystemPropertyName);
-    if (value != null) {
-      logger.debug(
-          String.format(
-              "Found '%s'='%s' in system properties (as system property)",
-              normalizedSystemPropertyName, value));
-      return Optional.of(value);
-    }
-
-    return Optional.empty();
+    final Properties userProperties = session.getUserProperties();
+    final Properties systemProperties = session.getSystemProperties();
+    return JGitverProperties.resolve(
+        propertyName,
+        userProperties::getProperty,
+        name -> systemProperties.getProperty("env." + name),
+        systemProperties::getProperty,
+        logger);
   }
 
   /**
@@ -462,7 +809,15 @@ public final class JGitverUtils {
           "It's not possible to normalize a blank name into a compliant name");
     }
 
-    return StringUtils.replacePattern(
-        StringUtils.replacePattern(mavenPropertyName, "[^a-zA-Z0-9_]", "_"), "^[0-9]", "_");
+    char[] chars = mavenPropertyName.toCharArray();
+    for (int i = 0; i < chars.length; i++) {
+      char c = chars[i];
+      boolean compliant =
+          (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+      if (!compliant || (i == 0 && c >= '0' && c <= '9')) {
+        chars[i] = '_';
+      }
+    }
+    return new String(chars);
   }
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.maven.model.Model;
+
+/**
+ * Thread safe cache of provisioned models, bound to a build session.
+ *
+ * <p>Maven reads the same reactor pom several times during a build (project building, parent
+ * resolution, imported boms...). Models are stored and handed out as clones so that callers can
+ * modify them freely.
+ */
+public final class ModelCache {
+  private final Map<Key, Model> models = new ConcurrentHashMap<>();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * Provides a copy of the model stored for the given key.
+   *
+   * @param key the read identification
+   * @return a clone of the cached model or null if none is cached
+   */
+  public Model get(Key key) {
+    Model model = models.get(key);
+    if (model == null) {
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    return model.clone();
+  }
+
+  /**
+   * Stores a copy of the given model.
+   *
+   * @param key the read identification
+   * @param model the provisioned model
+   */
+  public void put(Key key, Model model) {
+    models.put(key, model.clone());
+  }
+
+  public long hits() {
+    return hits.sum();
+  }
+
+  public long misses() {
+    return misses.sum();
+  }
+
+  /** Identifies a read of a pom file: its location, its state on disk and the read options. */
+  public static final class Key {
+    private final File location;
+    private final long size;
+    private final long lastModified;
+    private final String options;
+
+    /**
+     * Builds the key of a read.
+     *
+     * @param canonicalLocation the canonical pom file
+     * @param options a stable representation of the read options
+     */
+    public Key(File canonicalLocation, String options) {
+      this.location = canonicalLocation;
+      this.size = canonicalLocation.length();
+      this.lastModified = canonicalLocation.lastModified();
+      this.options = options;
+    }
+
+    public File getLocation() {
+      return location;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Key key = (Key) o;
+      return size == key.size
+          && lastModified == key.lastModified
+          && location.equals(key.location)
+          && options.equals(key.options);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(location, size, lastModified, options);
+    }
+
+    @Override
+    public String toString() {
+      return location.getPath();
+    }
+  }
+}
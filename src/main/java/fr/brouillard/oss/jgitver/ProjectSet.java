@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Insertion ordered set of projects supporting concurrent additions without locking, as models can
+ * be built in parallel.
+ *
+ * <p>Equal projects are interned: the first added instance is kept and shared.
+ *
+ * <p>Iteration is weakly consistent: it reflects at least all the additions completed before the
+ * iterator creation. Removal is not supported.
+ */
+public final class ProjectSet extends AbstractSet<GAV> {
+  private final Map<GAV, GAV> members = new ConcurrentHashMap<>();
+  private final Queue<GAV> order = new ConcurrentLinkedQueue<>();
+
+  @Override
+  public boolean add(GAV project) {
+    if (members.putIfAbsent(project, project) == null) {
+      order.add(project);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Adds the given project if not already present.
+   *
+   * @param project the project to add
+   * @return the instance held by this set, the given one if it was not already present
+   */
+  public GAV intern(GAV project) {
+    return add(project) ? project : members.get(project);
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return members.containsKey(o);
+  }
+
+  @Override
+  public Iterator<GAV> iterator() {
+    Iterator<GAV> delegate = order.iterator();
+    return new Iterator<GAV>() {
+      @Override
+      public boolean hasNext() {
+        return delegate.hasNext();
+      }
+
+      @Override
+      public GAV next() {
+        return delegate.next();
+      }
+    };
+  }
+
+  @Override
+  public int size() {
+    return members.size();
+  }
+}
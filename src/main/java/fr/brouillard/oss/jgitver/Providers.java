@@ -16,6 +16,9 @@
 package fr.brouillard.oss.jgitver;
 
 import fr.brouillard.oss.jgitver.metadata.Metadatas;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.Optional;
 
 public class Providers {
@@ -51,4 +54,55 @@ public class Providers {
       }
     };
   }
+
+  /**
+   * Builds a provider answering from already known values, without any access to the git
+   * repository.
+   *
+   * @param version the version to provide
+   * @param metadatas the known metadatas, missing entries are provided as empty
+   * @return a non null provider
+   */
+  public static JGitverInformationProvider fromValues(
+      final String version, final Map<Metadatas, String> metadatas) {
+    final Map<Metadatas, String> values =
+        metadatas.isEmpty()
+            ? Collections.emptyMap()
+            : Collections.unmodifiableMap(new EnumMap<>(metadatas));
+    return new JGitverInformationProvider() {
+      private volatile Version parsed;
+
+      @Override
+      public String getVersion() {
+        return version;
+      }
+
+      @Override
+      public Version getVersionObject() {
+        if (parsed == null) {
+          parsed = Version.parse(version);
+        }
+        return parsed;
+      }
+
+      @Override
+      public Optional<String> meta(Metadatas meta) {
+        return Optional.ofNullable(values.get(meta));
+      }
+    };
+  }
+
+  /**
+   * Extracts all the metadatas of the given provider.
+   *
+   * @param provider the provider to query
+   * @return a map of all the metadatas having a value
+   */
+  public static Map<Metadatas, String> snapshot(JGitverInformationProvider provider) {
+    Map<Metadatas, String> values = new EnumMap<>(Metadatas.class);
+    for (Metadatas meta : Metadatas.values()) {
+      provider.meta(meta).ifPresent(value -> values.put(meta, value));
+    }
+    return values;
+  }
 }
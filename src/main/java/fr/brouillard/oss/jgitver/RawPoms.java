@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread safe store of the raw content of the reactor poms, as read by the model processor before
+ * any modification.
+ *
+ * <p>Contents are exposed as read only buffers, a JDK type that can be handed over to the mojos
+ * living in the plugin class realm.
+ */
+public final class RawPoms {
+  private final Map<File, ByteBuffer> contents = new ConcurrentHashMap<>();
+
+  /**
+   * Stores the raw content of a pom, the given array must not be modified afterwards.
+   *
+   * @param canonicalLocation the canonical pom file
+   * @param content the bytes of the pom file
+   */
+  public void put(File canonicalLocation, byte[] content) {
+    contents.put(canonicalLocation, ByteBuffer.wrap(content).asReadOnlyBuffer());
+  }
+
+  /**
+   * Provides the raw content of a pom.
+   *
+   * @param canonicalLocation the canonical pom file
+   * @return a read only view of the content, empty if the pom has not been read
+   */
+  public Optional<ByteBuffer> get(File canonicalLocation) {
+    return Optional.ofNullable(contents.get(canonicalLocation)).map(ByteBuffer::duplicate);
+  }
+
+  public int size() {
+    return contents.size();
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Classifies pom locations without any file system access.
+ *
+ * <p>Most poms read during a build come from the local repository and are not owned by the project.
+ * A location that does not start with the multi module directory, as given or canonical, cannot be
+ * part of the reactor and is rejected by a plain string comparison. Relative locations and
+ * locations with {@code ..} segments are not rejected, they are left to the full checks.
+ */
+public final class ReactorLocations {
+  private final String[] prefixes;
+
+  /**
+   * Precomputes the prefixes of the given directory.
+   *
+   * @param multiModuleDirectory the root directory of the reactor
+   */
+  public ReactorLocations(File multiModuleDirectory) {
+    Set<String> paths = new LinkedHashSet<>();
+    File absolute = multiModuleDirectory.getAbsoluteFile();
+    paths.add(withSeparator(absolute.getPath()));
+    try {
+      paths.add(withSeparator(absolute.getCanonicalPath()));
+    } catch (IOException ignore) {
+      // the absolute path is then the only known prefix
+    }
+    this.prefixes = paths.toArray(new String[0]);
+  }
+
+  private static String withSeparator(String path) {
+    return path.endsWith(File.separator) ? path : path + File.separator;
+  }
+
+  /**
+   * Tells if the given pom location might belong to the reactor.
+   *
+   * @param location a pom location as given by {@link org.apache.maven.building.Source}
+   * @return false if the location is for sure outside of the reactor
+   */
+  public boolean mayContain(String location) {
+    for (String prefix : prefixes) {
+      if (location.regionMatches(true, 0, prefix, 0, prefix.length())) {
+        return true;
+      }
+    }
+    return location.contains("..") || !new File(location).isAbsolute();
+  }
+}
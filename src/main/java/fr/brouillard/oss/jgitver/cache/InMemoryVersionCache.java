@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver.cache;
+
+import fr.brouillard.oss.jgitver.JGitverInformationProvider;
+import fr.brouillard.oss.jgitver.Providers;
+import java.io.File;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JVM wide cache of the last version computation per multi module root directory.
+ *
+ * <p>The cache is static so that it survives the end of a maven session: builds run successively by
+ * the same JVM (maven daemon, embedded maven) reuse the computation as long as the key of the
+ * repository state is unchanged, whatever the lifecycle of the plexus components is.
+ */
+public final class InMemoryVersionCache {
+  private static final Map<String, Entry> ENTRIES = new ConcurrentHashMap<>();
+
+  private InMemoryVersionCache() {}
+
+  /**
+   * Retrieves the last computation made for the given root directory if it was stored under the
+   * given key.
+   *
+   * @param rootDirectory the multi module root directory
+   * @param key the key of the current repository state
+   * @return the cached information or empty if nothing matches
+   */
+  public static Optional<JGitverInformationProvider> lookup(File rootDirectory, String key) {
+    Entry entry = ENTRIES.get(rootDirectory.getAbsolutePath());
+    if (entry != null && entry.key.equals(key)) {
+      return Optional.of(entry.provider);
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Stores a detached copy of the given computation for the given root directory, replacing the
+   * previous one.
+   *
+   * @param rootDirectory the multi module root directory
+   * @param key the key of the current repository state
+   * @param provider the computation to store
+   */
+  public static void store(File rootDirectory, String key, JGitverInformationProvider provider) {
+    JGitverInformationProvider detached =
+        Providers.fromValues(provider.getVersion(), Providers.snapshot(provider));
+    ENTRIES.put(rootDirectory.getAbsolutePath(), new Entry(key, detached));
+  }
+
+  /** Drops all the cached computations. */
+  public static void clear() {
+    ENTRIES.clear();
+  }
+
+  private static final class Entry {
+    private final String key;
+    private final JGitverInformationProvider provider;
+
+    private Entry(String key, JGitverInformationProvider provider) {
+      this.key = key;
+      this.provider = provider;
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver.cache;
+
+import fr.brouillard.oss.jgitver.JGitverInformationProvider;
+import fr.brouillard.oss.jgitver.git.GitDirectory;
+import java.io.File;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.Properties;
+import org.codehaus.plexus.logging.Logger;
+
+/**
+ * On disk cache of a version computation, stored under {@code jgitver/} of the git directory of the
+ * multi module root directory, out of reach of {@code mvn clean}.
+ */
+public class VersionCache {
+  static final String CACHE_FILE_NAME = "version-cache.properties";
+  private static final String KEY = "key";
+
+  private final File cacheFile;
+  private final Logger logger;
+
+  public VersionCache(File rootDirectory, Logger logger) {
+    // without git directory no cache key can be computed, the file is never used
+    File gitDirectory =
+        GitDirectory.find(rootDirectory)
+            .map(GitDirectory::getGitDir)
+            .orElseGet(() -> new File(rootDirectory, ".git"));
+    this.cacheFile = new File(new File(gitDirectory, "jgitver"), CACHE_FILE_NAME);
+    this.logger = logger;
+  }
+
+  public File getCacheFile() {
+    return cacheFile;
+  }
+
+  /**
+   * Retrieves the cached computation if it was stored under the given key.
+   *
+   * @param key the key of the current repository state
+   * @return the cached information or empty if nothing matches the key
+   */
+  public Optional<JGitverInformationProvider> lookup(String key) {
+    if (!cacheFile.isFile()) {
+      return Optional.empty();
+    }
+
+    Properties p;
+    try {
+      p = VersionFiles.load(cacheFile);
+    } catch (IOException ex) {
+      logger.debug("cannot read jgitver cache file " + cacheFile, ex);
+      return Optional.empty();
+    }
+
+    if (!key.equals(p.getProperty(KEY))) {
+      return Optional.empty();
+    }
+    return VersionFiles.decode(p);
+  }
+
+  /**
+   * Stores the given computation under the given key, replacing any previous content.
+   *
+   * @param key the key of the current repository state
+   * @param provider the computation to store
+   */
+  public void store(String key, JGitverInformationProvider provider) {
+    Properties p = VersionFiles.encode(provider);
+    p.setProperty(KEY, key);
+
+    try {
+      VersionFiles.store(cacheFile, p, "jgitver version cache");
+    } catch (IOException ex) {
+      logger.warn("cannot write jgitver cache file " + cacheFile, ex);
+    }
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver.cache;
+
+import fr.brouillard.oss.jgitver.JGitverMavenPluginProperties;
+import fr.brouillard.oss.jgitver.JGitverUtils;
+import fr.brouillard.oss.jgitver.cfg.BranchPolicy;
+import fr.brouillard.oss.jgitver.cfg.CompiledConfiguration;
+import fr.brouillard.oss.jgitver.cfg.Configuration;
+import fr.brouillard.oss.jgitver.git.DirtyChecker;
+import fr.brouillard.oss.jgitver.git.GitDirectory;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Optional;
+
+/**
+ * Computes the key identifying a version computation: HEAD commit, tags fingerprint (object id and
+ * type of each loose tag), stat data of the tracked files, loaded configuration, configuration
+ * files and the external inputs of jgitver.
+ *
+ * <p>Untracked files are only taken into account, through a full dirty check, when {@code useDirty}
+ * or {@code failIfDirty} is set; otherwise adding one leaves the cached {@code DIRTY} metadata
+ * unchanged.
+ */
+public final class VersionCacheKey {
+  private VersionCacheKey() {}
+
+  /**
+   * Computes the cache key for the given repository state.
+   *
+   * @param rootDirectory the maven multi module root directory
+   * @param compiled the loaded configuration
+   * @param forceComputation true if jgitver.forceComputation is active
+   * @return the key or empty if the repository state cannot be fingerprinted
+   */
+  public static Optional<String> compute(
+      File rootDirectory, CompiledConfiguration compiled, boolean forceComputation) {
+    return compute(rootDirectory, compiled, forceComputation, Optional.empty());
+  }
+
+  /**
+   * Computes the cache key for the given repository state, reusing a dirty state already known.
+   *
+   * @param rootDirectory the maven multi module root directory
+   * @param compiled the loaded configuration
+   * @param forceComputation true if jgitver.forceComputation is active
+   * @param dirty the result of a {@link DirtyChecker} walk already done for this build, if any
+   * @return the key or empty if the repository state cannot be fingerprinted
+   */
+  public static Optional<String> compute(
+      File rootDirectory,
+      CompiledConfiguration compiled,
+      boolean forceComputation,
+      Optional<Boolean> dirty) {
+    Configuration cfg = compiled.getConfiguration();
+    Optional<GitDirectory> optGit = GitDirectory.find(rootDirectory);
+    if (!optGit.isPresent()) {
+      return Optional.empty();
+    }
+    GitDirectory git = optGit.get();
+
+    Optional<String> head = git.readHead();
+    Optional<String> headCommit = git.resolveHead();
+    if (!head.isPresent() || !headCommit.isPresent()) {
+      return Optional.empty();
+    }
+
+    StringBuilder sb = new StringBuilder();
+    append(sb, "plugin", JGitverMavenPluginProperties.getVersion());
+    append(sb, "plugin.sha1", JGitverMavenPluginProperties.getSHA1());
+    append(sb, "root", rootDirectory.getAbsolutePath());
+    append(sb, "head", head.get());
+    append(sb, "head.commit", headCommit.get());
+    Optional<String> tags = git.tagsFingerprint();
+    if (!tags.isPresent()) {
+      return Optional.empty();
+    }
+    append(sb, "tags", sha1(tags.get()));
+    Optional<String> trackedFiles = git.trackedFilesFingerprint();
+    if (!trackedFiles.isPresent()) {
+      return Optional.empty();
+    }
+    append(sb, "worktree", sha1(trackedFiles.get()));
+    if (cfg.useDirty || cfg.failIfDirty) {
+      // the version or the build outcome depends on untracked files too, unseen by the stat data
+      try {
+        append(sb, "dirty", dirty.isPresent() ? dirty.get() : DirtyChecker.isDirty(rootDirectory));
+      } catch (IOException | RuntimeException ex) {
+        return Optional.empty();
+      }
+    }
+    append(sb, "cfg", configurationFingerprint(cfg));
+    append(sb, "cfg.files", configurationFilesFingerprint(rootDirectory));
+    append(sb, "forceComputation", forceComputation);
+    append(sb, "branch.property", System.getProperty("jgitver.branch"));
+    append(sb, "branch.env", System.getenv("JGITVER_BRANCH"));
+    append(sb, "calculator.kind", System.getProperty("jgitver.calculator.kind"));
+
+    return Optional.of(sha1(sb.toString()));
+  }
+
+  private static String configurationFilesFingerprint(File rootDirectory) {
+    StringBuilder sb = new StringBuilder();
+    String cliConfigFile = System.getProperty(JGitverUtils.CLI.OVERRIDE_CONFIG_FILE);
+    File mvnDirectory = new File(rootDirectory, ".mvn");
+    File[] candidates = {
+      cliConfigFile == null ? null : new File(cliConfigFile),
+      new File(mvnDirectory, "jgitver.config.xml"),
+      new File(mvnDirectory, "jgtiver.config.xml")
+    };
+    for (File candidate : candidates) {
+      if (candidate != null) {
+        sb.append(candidate.getPath()).append(':').append(candidate.lastModified()).append(':');
+        sb.append(candidate.length()).append(';');
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Builds a stable textual representation of all the public attributes of the configuration.
+   *
+   * @param cfg the configuration to describe
+   * @return a non null string
+   */
+  static String configurationFingerprint(Configuration cfg) {
+    StringBuilder sb = new StringBuilder();
+    Field[] fields = Configuration.class.getFields();
+    Arrays.sort(fields, Comparator.comparing(Field::getName));
+    for (Field field : fields) {
+      if (Modifier.isStatic(field.getModifiers())) {
+        continue;
+      }
+      try {
+        append(sb, field.getName(), describe(field.get(cfg)));
+      } catch (IllegalAccessException ex) {
+        throw new IllegalStateException("cannot read configuration field " + field.getName(), ex);
+      }
+    }
+    return sb.toString();
+  }
+
+  private static String describe(Object value) {
+    if (value instanceof Iterable) {
+      StringBuilder sb = new StringBuilder("[");
+      for (Object item : (Iterable<?>) value) {
+        sb.append(describe(item)).append(',');
+      }
+      return sb.append(']').toString();
+    } else if (value instanceof BranchPolicy) {
+      BranchPolicy bp = (BranchPolicy) value;
+      return "{" + bp.pattern + "|" + describe(bp.transformations) + "}";
+    }
+    return String.valueOf(value);
+  }
+
+  private static void append(StringBuilder sb, String name, Object value) {
+    sb.append(name).append('=').append(value).append('\n');
+  }
+
+  private static String sha1(String content) {
+    try {
+      MessageDigest md = MessageDigest.getInstance("SHA-1");
+      byte[] digest = md.digest(content.getBytes(StandardCharsets.UTF_8));
+      StringBuilder sb = new StringBuilder(digest.length * 2);
+      for (byte b : digest) {
+        sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return sb.toString();
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException("SHA-1 algorithm is not available", ex);
+    }
+  }
+}
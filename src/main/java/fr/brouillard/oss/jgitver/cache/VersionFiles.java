@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver.cache;
+
+import fr.brouillard.oss.jgitver.JGitverInformationProvider;
+import fr.brouillard.oss.jgitver.Providers;
+import fr.brouillard.oss.jgitver.metadata.Metadatas;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * Properties file format of a version computation: the version under {@code version} and each
+ * metadata under {@code meta.<NAME>}.
+ */
+public final class VersionFiles {
+  private static final String VERSION = "version";
+  private static final String META_PREFIX = "meta.";
+
+  private VersionFiles() {}
+
+  /**
+   * Describes the given computation as properties.
+   *
+   * @param provider the computation
+   * @return new properties holding the version and the available metadatas
+   */
+  public static Properties encode(JGitverInformationProvider provider) {
+    Properties p = new Properties();
+    p.setProperty(VERSION, provider.getVersion());
+    Providers.snapshot(provider)
+        .forEach((meta, value) -> p.setProperty(META_PREFIX + meta.name(), value));
+    return p;
+  }
+
+  /**
+   * Rebuilds a computation from properties written by {@link #encode(JGitverInformationProvider)}.
+   *
+   * @param p the properties
+   * @return the computation or empty if no version is defined
+   */
+  public static Optional<JGitverInformationProvider> decode(Properties p) {
+    String version = p.getProperty(VERSION);
+    if (version == null) {
+      return Optional.empty();
+    }
+
+    Map<Metadatas, String> metadatas = new EnumMap<>(Metadatas.class);
+    for (Metadatas meta : Metadatas.values()) {
+      String value = p.getProperty(META_PREFIX + meta.name());
+      if (value != null) {
+        metadatas.put(meta, value);
+      }
+    }
+    return Optional.of(Providers.fromValues(version, metadatas));
+  }
+
+  /**
+   * Reads a computation stored with {@link #write(File, JGitverInformationProvider, String)}.
+   *
+   * @param file the file to read
+   * @return the computation
+   * @throws IOException if the file cannot be read or does not define a version
+   */
+  public static JGitverInformationProvider read(File file) throws IOException {
+    return decode(load(file))
+        .orElseThrow(() -> new IOException("no version defined in file " + file));
+  }
+
+  /**
+   * Stores the given computation, replacing atomically any previous content.
+   *
+   * @param file the file to write
+   * @param provider the computation to store
+   * @param comment the header comment of the file
+   * @throws IOException if the file cannot be written
+   */
+  public static void write(File file, JGitverInformationProvider provider, String comment)
+      throws IOException {
+    store(file, encode(provider), comment);
+  }
+
+  static Properties load(File file) throws IOException {
+    Properties p = new Properties();
+    try (InputStream is = Files.newInputStream(file.toPath())) {
+      p.load(is);
+    }
+    return p;
+  }
+
+  static void store(File file, Properties p, String comment) throws IOException {
+    File directory = file.getAbsoluteFile().getParentFile();
+    Files.createDirectories(directory.toPath());
+    File tmp = File.createTempFile(file.getName(), ".tmp", directory);
+    try (OutputStream os = Files.newOutputStream(tmp.toPath())) {
+      p.store(os, comment);
+    }
+    Files.move(
+        tmp.toPath(),
+        file.toPath(),
+        StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver.cfg;
+
+import fr.brouillard.oss.jgitver.BranchingPolicy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import org.apache.maven.MavenExecutionException;
+
+/**
+ * A loaded {@link Configuration} with its regular expressions compiled once.
+ *
+ * <p>Instances are cached across builds run by the same JVM and must be considered read only,
+ * including the wrapped configuration.
+ */
+public final class CompiledConfiguration {
+  private final Configuration configuration;
+  private final Pattern versionTagPattern;
+  private final List<BranchingPolicy> branchingPolicies;
+
+  private CompiledConfiguration(
+      Configuration configuration,
+      Pattern versionTagPattern,
+      List<BranchingPolicy> branchingPolicies) {
+    this.configuration = configuration;
+    this.versionTagPattern = versionTagPattern;
+    this.branchingPolicies = branchingPolicies;
+  }
+
+  /**
+   * Compiles the regular expressions of the given configuration.
+   *
+   * @param configuration the configuration to compile
+   * @return a non null compiled configuration
+   * @throws MavenExecutionException if a regular expression of the configuration is invalid
+   */
+  public static CompiledConfiguration compile(Configuration configuration)
+      throws MavenExecutionException {
+    Pattern versionTagPattern = null;
+    if (configuration.regexVersionTag != null) {
+      try {
+        versionTagPattern = Pattern.compile(configuration.regexVersionTag);
+      } catch (PatternSyntaxException ex) {
+        throw new MavenExecutionException(
+            "invalid regexVersionTag in jgitver configuration: " + configuration.regexVersionTag,
+            ex);
+      }
+    }
+
+    List<BranchingPolicy> branchingPolicies = Collections.emptyList();
+    if (configuration.branchPolicies != null && !configuration.branchPolicies.isEmpty()) {
+      branchingPolicies = new ArrayList<>(configuration.branchPolicies.size());
+      for (BranchPolicy bp : configuration.branchPolicies) {
+        try {
+          branchingPolicies.add(new BranchingPolicy(bp.pattern, bp.transformations));
+        } catch (PatternSyntaxException ex) {
+          throw new MavenExecutionException(
+              "invalid branchPolicy pattern in jgitver configuration: " + bp.pattern, ex);
+        }
+      }
+      branchingPolicies = Collections.unmodifiableList(branchingPolicies);
+    }
+
+    return new CompiledConfiguration(configuration, versionTagPattern, branchingPolicies);
+  }
+
+  public Configuration getConfiguration() {
+    return configuration;
+  }
+
+  /**
+   * Provides the compiled {@link Configuration#regexVersionTag}.
+   *
+   * @return the pattern finding version tags, empty if the configuration does not define one
+   */
+  public Optional<Pattern> getVersionTagPattern() {
+    return Optional.ofNullable(versionTagPattern);
+  }
+
+  /**
+   * Provides the policies built from {@link Configuration#branchPolicies}.
+   *
+   * @return a non null unmodifiable list, empty if the configuration does not define any policy
+   */
+  public List<BranchingPolicy> getBranchingPolicies() {
+    return branchingPolicies;
+  }
+}
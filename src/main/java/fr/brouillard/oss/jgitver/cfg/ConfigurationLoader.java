@@ -16,21 +16,23 @@
 package fr.brouillard.oss.jgitver.cfg;
 
 import fr.brouillard.oss.jgitver.JGitverUtils;
+import fr.brouillard.oss.jgitver.jfr.JGitverEvents;
+import fr.brouillard.oss.jgitver.jfr.JGitverEvents.Span;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.maven.MavenExecutionException;
 import org.codehaus.plexus.logging.Logger;
-import org.simpleframework.xml.Serializer;
-import org.simpleframework.xml.convert.AnnotationStrategy;
-import org.simpleframework.xml.core.Persister;
-import org.simpleframework.xml.strategy.Strategy;
 
 public class ConfigurationLoader {
-  private static final String NAMESPACE_1_0_0_beta =
-      "http://jgitver.github.io/maven/configuration/1.0.0-beta";
-  private static final String NAMESPACE_1_0_0 =
-      "http://jgitver.github.io/maven/configuration/1.0.0";
+  // JVM wide so that builds run successively by the same JVM (maven daemon, embedded maven) do not
+  // parse an unchanged configuration file again
+  private static final Map<String, Entry> COMPILED = new ConcurrentHashMap<>();
+  // a file modified that close to the time it was cached may change again without its timestamp
+  private static final long RACY_DELAY_MS = 2000L;
+
   private final Logger logger;
 
   private final List<File> configurationFiles;
@@ -54,9 +56,20 @@ public class ConfigurationLoader {
   }
 
   public Configuration load() throws MavenExecutionException {
+    return loadCompiled().getConfiguration();
+  }
+
+  /**
+   * Loads the first configuration file found, reusing the compiled result of a previous load as
+   * long as the file is unchanged.
+   *
+   * @return a non null compiled configuration, a default one if no configuration file exists
+   * @throws MavenExecutionException if a configuration file exists but cannot be read correctly
+   */
+  public CompiledConfiguration loadCompiled() throws MavenExecutionException {
     for (File cfgFile : configurationFiles) {
       logger.debug("trying to load configuration from: " + cfgFile);
-      Configuration c = loadFromFile(cfgFile, logger);
+      CompiledConfiguration c = loadFromFile(cfgFile, logger);
       if (c != null) {
         logger.info("Using jgitver configuration file: " + cfgFile);
         return c;
@@ -64,7 +77,12 @@ public class ConfigurationLoader {
     }
 
     logger.info("No suitable configuration file found, using defaults");
-    return new Configuration();
+    return CompiledConfiguration.compile(new Configuration());
+  }
+
+  /** Drops all the compiled configurations kept in memory. */
+  public static void clearCache() {
+    COMPILED.clear();
   }
 
   /**
@@ -103,22 +121,35 @@ public class ConfigurationLoader {
     //        }
   }
 
-  private static Configuration loadFromFile(File configurationXml) throws MavenExecutionException {
-    return loadFromFile(configurationXml, new InMemoryLogger());
-  }
-
-  private static Configuration loadFromFile(File configurationXml, Logger logger)
+  private static CompiledConfiguration loadFromFile(File configurationXml, Logger logger)
       throws MavenExecutionException {
-    Strategy strategy = new AnnotationStrategy();
-    Serializer serializer = new Persister(strategy);
-
     if (configurationXml.exists()) {
       if (configurationXml.canRead()) {
+        Span event = JGitverEvents.configLoad(configurationXml);
         try {
-          return serializer.read(Configuration.class, configurationXml);
-        } catch (Exception e) {
-          throw new MavenExecutionException(
-              "failure reading configuration from: " + configurationXml, e);
+          String path = configurationXml.getAbsolutePath();
+          long size = configurationXml.length();
+          long lastModified = configurationXml.lastModified();
+          long now = System.currentTimeMillis();
+          Entry entry = COMPILED.get(path);
+          if (entry != null && entry.isUnchanged(size, lastModified)) {
+            logger.debug("jgitver configuration file " + configurationXml + " unchanged, reused");
+            event.cacheHit(true);
+            return entry.compiled;
+          }
+
+          Configuration configuration;
+          try {
+            configuration = ConfigurationParser.parse(configurationXml);
+          } catch (Exception e) {
+            throw new MavenExecutionException(
+                "failure reading configuration from: " + configurationXml, e);
+          }
+          CompiledConfiguration compiled = CompiledConfiguration.compile(configuration);
+          COMPILED.put(path, new Entry(size, lastModified, now, compiled));
+          return compiled;
+        } finally {
+          event.finish();
         }
       } else {
         logger.warn(
@@ -131,4 +162,24 @@ public class ConfigurationLoader {
 
     return null;
   }
+
+  private static final class Entry {
+    private final long size;
+    private final long lastModified;
+    private final long cachedAt;
+    private final CompiledConfiguration compiled;
+
+    private Entry(long size, long lastModified, long cachedAt, CompiledConfiguration compiled) {
+      this.size = size;
+      this.lastModified = lastModified;
+      this.cachedAt = cachedAt;
+      this.compiled = compiled;
+    }
+
+    private boolean isUnchanged(long size, long lastModified) {
+      return this.size == size
+          && this.lastModified == lastModified
+          && lastModified < cachedAt - RACY_DELAY_MS;
+    }
+  }
 }
@@ -0,0 +1,340 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver.cfg;
+
+import fr.brouillard.oss.jgitver.LookupPolicy;
+import fr.brouillard.oss.jgitver.ScriptType;
+import fr.brouillard.oss.jgitver.Strategies;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.LinkedList;
+import java.util.List;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Streaming reader of the jgitver configuration file, for the {@code 1.0.0-beta} & {@code 1.0.0}
+ * namespaces or without namespace.
+ *
+ * <p>It fills {@link Configuration} and {@link BranchPolicy} directly, like the simplexml mapping
+ * of those classes did: unknown elements of the configuration are rejected, branch policies are
+ * read like {@link SimpleBranchPolicyConverter} does.
+ */
+final class ConfigurationParser {
+  static final String NAMESPACE_1_0_0_BETA =
+      "http://jgitver.github.io/maven/configuration/1.0.0-beta";
+  static final String NAMESPACE_1_0_0 = "http://jgitver.github.io/maven/configuration/1.0.0";
+
+  private static final XMLInputFactory FACTORY = newFactory();
+
+  private final XMLStreamReader reader;
+
+  private ConfigurationParser(XMLStreamReader reader) {
+    this.reader = reader;
+  }
+
+  /**
+   * Reads the given configuration file.
+   *
+   * @param configurationXml the file to read
+   * @return a non null configuration
+   * @throws IOException if the file cannot be read or is not a valid configuration
+   */
+  static Configuration parse(File configurationXml) throws IOException {
+    try (InputStream is = Files.newInputStream(configurationXml.toPath())) {
+      XMLStreamReader reader;
+      synchronized (FACTORY) {
+        reader = FACTORY.createXMLStreamReader(is);
+      }
+      try {
+        return new ConfigurationParser(reader).configuration();
+      } finally {
+        reader.close();
+      }
+    } catch (XMLStreamException ex) {
+      throw new IOException(ex.getMessage(), ex);
+    }
+  }
+
+  private static XMLInputFactory newFactory() {
+    XMLInputFactory factory = XMLInputFactory.newFactory();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+    factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    return factory;
+  }
+
+  private Configuration configuration() throws XMLStreamException, IOException {
+    reader.nextTag();
+    checkNamespace();
+
+    Configuration cfg = new Configuration();
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String name = reader.getAttributeLocalName(i);
+      if ("schemaLocation".equals(name)) {
+        cfg.schemaLocation = reader.getAttributeValue(i);
+      } else {
+        throw invalid("unexpected attribute '" + name + "'");
+      }
+    }
+
+    while (nextChild()) {
+      String name = reader.getLocalName();
+      switch (name) {
+        case "mavenLike":
+          cfg.mavenLike = booleanValue();
+          break;
+        case "strategy":
+          cfg.strategy = enumValue(Strategies.class);
+          break;
+        case "policy":
+          cfg.policy = enumValue(LookupPolicy.class);
+          break;
+        case "autoIncrementPatch":
+          cfg.autoIncrementPatch = booleanValue();
+          break;
+        case "useCommitDistance":
+          cfg.useCommitDistance = booleanValue();
+          break;
+        case "useDirty":
+          cfg.useDirty = booleanValue();
+          break;
+        case "failIfDirty":
+          cfg.failIfDirty = booleanValue();
+          break;
+        case "useDefaultBranchingPolicy":
+          cfg.useDefaultBranchingPolicy = booleanValue();
+          break;
+        case "useGitCommitTimestamp":
+          cfg.useGitCommitTimestamp = booleanValue();
+          break;
+        case "useGitCommitId":
+          cfg.useGitCommitId = booleanValue();
+          break;
+        case "useSnapshot":
+          cfg.useSnapshot = booleanValue();
+          break;
+        case "gitCommitIdLength":
+          cfg.gitCommitIdLength = intValue();
+          break;
+        case "maxSearchDepth":
+          cfg.maxSearchDepth = intValue();
+          break;
+        case "nonQualifierBranches":
+          cfg.nonQualifierBranches = stringValue(cfg.nonQualifierBranches);
+          break;
+        case "regexVersionTag":
+          cfg.regexVersionTag = stringValue(cfg.regexVersionTag);
+          break;
+        case "versionPattern":
+          cfg.versionPattern = stringValue(cfg.versionPattern);
+          break;
+        case "tagVersionPattern":
+          cfg.tagVersionPattern = stringValue(cfg.tagVersionPattern);
+          break;
+        case "exclusions":
+          cfg.exclusions = stringList("exclusion");
+          break;
+        case "branchPolicies":
+          cfg.branchPolicies = branchPolicies();
+          break;
+        case "skipPomUpdate":
+          cfg.skipPomUpdate = booleanValue();
+          break;
+        case "script":
+          cfg.script = stringValue(cfg.script);
+          break;
+        case "scriptType":
+          cfg.scriptType = enumValue(ScriptType.class);
+          break;
+        default:
+          throw invalid("unexpected element '" + name + "'");
+      }
+    }
+    return cfg;
+  }
+
+  private List<BranchPolicy> branchPolicies() throws XMLStreamException, IOException {
+    List<BranchPolicy> policies = new LinkedList<>();
+    while (nextChild()) {
+      if (!"branchPolicy".equals(reader.getLocalName())) {
+        throw invalid("unexpected element '" + reader.getLocalName() + "'");
+      }
+      BranchPolicy bp = new BranchPolicy();
+      bp.transformations.clear();
+      while (nextChild()) {
+        switch (reader.getLocalName()) {
+          case "pattern":
+            bp.pattern = stringValue(bp.pattern);
+            break;
+          case "transformations":
+            bp.transformations.addAll(stringList("transformation"));
+            break;
+          default:
+            // ignored, as by SimpleBranchPolicyConverter
+            skipElement();
+        }
+      }
+      policies.add(bp);
+    }
+    return policies;
+  }
+
+  private List<String> stringList(String entry) throws XMLStreamException, IOException {
+    List<String> values = new LinkedList<>();
+    while (nextChild()) {
+      if (!entry.equals(reader.getLocalName())) {
+        throw invalid("unexpected element '" + reader.getLocalName() + "'");
+      }
+      values.add(stringValue());
+    }
+    return values;
+  }
+
+  /**
+   * Moves to the next child element of the current element.
+   *
+   * @return true if positioned on a child start element, false if positioned on the end element of
+   *     the current element
+   */
+  private boolean nextChild() throws XMLStreamException, IOException {
+    while (true) {
+      int event = reader.next();
+      switch (event) {
+        case XMLStreamConstants.START_ELEMENT:
+          checkNamespace();
+          return true;
+        case XMLStreamConstants.END_ELEMENT:
+          return false;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+          if (!reader.isWhiteSpace()) {
+            throw invalid("unexpected text '" + reader.getText().trim() + "'");
+          }
+          break;
+        case XMLStreamConstants.END_DOCUMENT:
+          throw invalid("unexpected end of document");
+        default:
+          // comments, processing instructions & ignorable spaces
+      }
+    }
+  }
+
+  private void skipElement() throws XMLStreamException {
+    int depth = 1;
+    while (depth > 0) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        depth++;
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        depth--;
+      }
+    }
+  }
+
+  private void checkNamespace() throws IOException {
+    String namespace = reader.getNamespaceURI();
+    if (namespace != null
+        && !namespace.isEmpty()
+        && !NAMESPACE_1_0_0.equals(namespace)
+        && !NAMESPACE_1_0_0_BETA.equals(namespace)) {
+      throw invalid("unsupported namespace '" + namespace + "'");
+    }
+  }
+
+  private String stringValue() throws XMLStreamException, IOException {
+    String name = reader.getLocalName();
+    StringBuilder sb = null;
+    String text = null;
+    while (true) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.CHARACTERS
+          || event == XMLStreamConstants.CDATA
+          || event == XMLStreamConstants.SPACE
+          || event == XMLStreamConstants.ENTITY_REFERENCE) {
+        if (text == null) {
+          text = reader.getText();
+        } else {
+          if (sb == null) {
+            sb = new StringBuilder(text);
+          }
+          sb.append(reader.getText());
+        }
+      } else if (event == XMLStreamConstants.START_ELEMENT) {
+        throw invalid("unexpected element '" + reader.getLocalName() + "' in '" + name + "'");
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        return sb != null ? sb.toString() : text;
+      }
+    }
+  }
+
+  /** Reads the text of the current element, an empty element keeps the given default value. */
+  private String stringValue(String defaultValue) throws XMLStreamException, IOException {
+    String value = stringValue();
+    return value != null ? value : defaultValue;
+  }
+
+  private boolean booleanValue() throws XMLStreamException, IOException {
+    return Boolean.parseBoolean(requiredValue());
+  }
+
+  private int intValue() throws XMLStreamException, IOException {
+    String name = reader.getLocalName();
+    String value = requiredValue();
+    try {
+      return Integer.parseInt(value.trim());
+    } catch (NumberFormatException ex) {
+      throw invalid("invalid number '" + value + "' for '" + name + "'");
+    }
+  }
+
+  private <E extends Enum<E>> E enumValue(Class<E> type) throws XMLStreamException, IOException {
+    String name = reader.getLocalName();
+    String value = requiredValue();
+    try {
+      return Enum.valueOf(type, value.trim());
+    } catch (IllegalArgumentException ex) {
+      throw invalid("invalid value '" + value + "' for '" + name + "'");
+    }
+  }
+
+  private String requiredValue() throws XMLStreamException, IOException {
+    String name = reader.getLocalName();
+    Location location = reader.getLocation();
+    String value = stringValue();
+    if (value == null) {
+      throw new IOException(
+          "empty element '" + name + "' at line " + location.getLineNumber() + " is not allowed");
+    }
+    return value;
+  }
+
+  private IOException invalid(String message) {
+    Location location = reader.getLocation();
+    return new IOException(
+        message
+            + " at line "
+            + location.getLineNumber()
+            + ", column "
+            + location.getColumnNumber());
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver.git;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.dircache.DirCacheIterator;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.CoreConfig.EolStreamType;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.FileTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.TreeWalk.OperationType;
+import org.eclipse.jgit.treewalk.WorkingTreeIterator;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+/**
+ * Tells if a working tree is dirty, stopping at the first difference found.
+ *
+ * <p>The outcome is the one of {@code git status}, as used by jgitver for its {@code DIRTY}
+ * metadata: staged, unstaged and untracked modifications count unless ignored. The stat data of the
+ * index is trusted, only files whose timestamp changed (or that are racily clean) get their content
+ * hashed as soon as they are met, and untracked ignored directories are not visited.
+ */
+public class DirtyChecker {
+  private static final int HEAD = 0;
+  private static final int INDEX = 1;
+  private static final int WORKING_TREE = 2;
+
+  private final Repository repository;
+
+  /**
+   * Creates a checker for the given repository.
+   *
+   * @param repository a repository having a working tree
+   */
+  public DirtyChecker(Repository repository) {
+    this.repository = repository;
+  }
+
+  /**
+   * Tells if the git repository containing the given directory has local modifications.
+   *
+   * @param rootDirectory the directory to look the repository from
+   * @return true if a staged, unstaged or untracked modification exists
+   * @throws IOException if the repository cannot be read
+   */
+  public static boolean isDirty(File rootDirectory) throws IOException {
+    try (Repository repository = new FileRepositoryBuilder().findGitDir(rootDirectory).build()) {
+      return new DirtyChecker(repository).isDirty();
+    }
+  }
+
+  /**
+   * Compares HEAD, the index and the working tree.
+   *
+   * @return true if a staged, unstaged or untracked modification exists
+   * @throws IOException if the repository cannot be read
+   */
+  public boolean isDirty() throws IOException {
+    DirCache index = repository.readDirCache();
+
+    try (ObjectReader reader = repository.newObjectReader();
+        TreeWalk walk = new TreeWalk(repository, reader)) {
+      ObjectId head = repository.resolve(Constants.HEAD + "^{tree}");
+      if (head != null) {
+        walk.addTree(head);
+      } else {
+        walk.addTree(new EmptyTreeIterator());
+      }
+      walk.addTree(new DirCacheIterator(index));
+      FileTreeIterator workingTree = new FileTreeIterator(repository);
+      workingTree.setDirCacheIterator(walk, INDEX);
+      walk.addTree(workingTree);
+      walk.setOperationType(OperationType.CHECKIN_OP);
+      walk.setFilter(new SkipIgnoredFilter());
+      walk.setRecursive(true);
+
+      while (walk.next()) {
+        int headMode = walk.getRawMode(HEAD);
+        int indexMode = walk.getRawMode(INDEX);
+        if (headMode != indexMode || (indexMode != 0 && !walk.idEqual(HEAD, INDEX))) {
+          return true;
+        }
+
+        DirCacheIterator indexEntry = walk.getTree(INDEX, DirCacheIterator.class);
+        WorkingTreeIterator file = walk.getTree(WORKING_TREE, WorkingTreeIterator.class);
+        if (indexEntry == null) {
+          if (file != null && !file.isEntryIgnored()) {
+            return true;
+          }
+          continue;
+        } else if (file == null) {
+          return true;
+        }
+
+        DirCacheEntry entry = indexEntry.getDirCacheEntry();
+        if (entry == null || entry.isAssumeValid() || FileMode.GITLINK == entry.getFileMode()) {
+          continue;
+        }
+
+        switch (file.compareMetadata(entry)) {
+          case EQUAL:
+            break;
+          case DIFFER_BY_METADATA:
+            return true;
+          default:
+            if (isRawContent(walk, entry)) {
+              if (contentDiffers(
+                  new File(repository.getWorkTree(), walk.getPathString()), entry.getObjectId())) {
+                return true;
+              }
+            } else if (file.isModified(entry, true, reader)) {
+              return true;
+            }
+        }
+      }
+    }
+
+    return false;
+  }
+
+  private static boolean contentDiffers(File file, ObjectId expected) {
+    try (InputStream is = Files.newInputStream(file.toPath())) {
+      ObjectId actual =
+          new ObjectInserter.Formatter().idFor(Constants.OBJ_BLOB, Files.size(file.toPath()), is);
+      return !expected.equals(actual);
+    } catch (IOException ex) {
+      // the file changed or vanished while being read
+      return true;
+    }
+  }
+
+  private static boolean isRawContent(TreeWalk walk, DirCacheEntry entry) throws IOException {
+    FileMode mode = entry.getFileMode();
+    return (FileMode.REGULAR_FILE == mode || FileMode.EXECUTABLE_FILE == mode)
+        && walk.getEolStreamType(OperationType.CHECKIN_OP) == EolStreamType.DIRECT
+        && walk.getFilterCommand(Constants.ATTR_FILTER_TYPE_CLEAN) == null;
+  }
+
+  private static class SkipIgnoredFilter extends TreeFilter {
+    @Override
+    public boolean include(TreeWalk walker) throws IOException {
+      if (walker.isSubtree() && walker.getRawMode(INDEX) == 0 && walker.getRawMode(HEAD) == 0) {
+        WorkingTreeIterator dir = walker.getTree(WORKING_TREE, WorkingTreeIterator.class);
+        return dir == null || !dir.isEntryIgnored();
+      }
+      return true;
+    }
+
+    @Override
+    public boolean shouldBeRecursive() {
+      return false;
+    }
+
+    @Override
+    public TreeFilter clone() {
+      return this;
+    }
+  }
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver.git;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.zip.InflaterInputStream;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.util.FS;
+
+/**
+ * Plain file access to the layout of a git repository ({@code .git} directory, linked worktrees and
+ * submodules).
+ *
+ * <p>Used to fingerprint the repository state cheaply, without opening it through JGit.
+ */
+public final class GitDirectory {
+  private static final String REF_PREFIX = "ref: ";
+  private static final String GITDIR_PREFIX = "gitdir: ";
+  /** Timestamps that recent cannot be trusted, a modification in the same tick would be missed. */
+  private static final long RACY_DELAY_MS = 2000L;
+
+  private final File workTree;
+  private final File gitDir;
+  private final File commonDir;
+
+  private GitDirectory(File workTree, File gitDir, File commonDir) {
+    this.workTree = workTree;
+    this.gitDir = gitDir;
+    this.commonDir = commonDir;
+  }
+
+  /**
+   * Looks for the git repository containing the given directory, walking up the file hierarchy.
+   *
+   * @param directory the directory to start the lookup from
+   * @return the git repository layout or empty if none could be found
+   */
+  public static Optional<GitDirectory> find(File directory) {
+    File current = directory.getAbsoluteFile();
+    while (current != null) {
+      File dotGit = new File(current, ".git");
+      try {
+        if (dotGit.isDirectory()) {
+          return Optional.of(new GitDirectory(current, dotGit, commonDirOf(dotGit)));
+        } else if (dotGit.isFile()) {
+          String content = readFirstLine(dotGit);
+          if (content != null && content.startsWith(GITDIR_PREFIX)) {
+            File linked = resolve(current, content.substring(GITDIR_PREFIX.length()));
+            if (linked.isDirectory()) {
+              return Optional.of(new GitDirectory(current, linked, commonDirOf(linked)));
+            }
+          }
+          return Optional.empty();
+        }
+      } catch (IOException ignore) {
+        return Optional.empty();
+      }
+      current = current.getParentFile();
+    }
+    return Optional.empty();
+  }
+
+  private static File commonDirOf(File gitDir) throws IOException {
+    File commonDirFile = new File(gitDir, "commondir");
+    if (commonDirFile.isFile()) {
+      String content = readFirstLine(commonDirFile);
+      if (content != null && !content.isEmpty()) {
+        return resolve(gitDir, content);
+      }
+    }
+    return gitDir;
+  }
+
+  private static File resolve(File base, String path) {
+    File f = new File(path.trim());
+    return f.isAbsolute() ? f : new File(base, path.trim());
+  }
+
+  private static String readFirstLine(File f) throws IOException {
+    try (BufferedReader reader = Files.newBufferedReader(f.toPath(), StandardCharsets.UTF_8)) {
+      String line = reader.readLine();
+      return line == null ? null : line.trim();
+    }
+  }
+
+  public File getWorkTree() {
+    return workTree;
+  }
+
+  public File getGitDir() {
+    return gitDir;
+  }
+
+  public File getCommonDir() {
+    return commonDir;
+  }
+
+  public File getIndexFile() {
+    return new File(gitDir, "index");
+  }
+
+  public File getPackedRefsFile() {
+    return new File(commonDir, "packed-refs");
+  }
+
+  public File getTagsDirectory() {
+    return new File(commonDir, "refs" + File.separator + "tags");
+  }
+
+  /**
+   * Fingerprints the working tree from stat data only: the index file, then the modification time
+   * and size of every tracked file, no content is read. Untracked files are not seen.
+   *
+   * @return a string changing whenever the index or a tracked file changes, empty if the index
+   *     cannot be read or a tracked file was modified too recently for its timestamp to be trusted
+   */
+  public Optional<String> trackedFilesFingerprint() {
+    File indexFile = getIndexFile();
+    long now = System.currentTimeMillis();
+    StringBuilder sb = new StringBuilder();
+    sb.append("index:").append(indexFile.lastModified()).append(':');
+    sb.append(indexFile.length()).append(';');
+    try {
+      DirCache index = DirCache.read(indexFile, FS.DETECTED);
+      for (int i = 0; i < index.getEntryCount(); i++) {
+        String path = index.getEntry(i).getPathString();
+        sb.append(path).append(':');
+        try {
+          BasicFileAttributes attributes =
+              Files.readAttributes(
+                  new File(workTree, path).toPath(),
+                  BasicFileAttributes.class,
+                  LinkOption.NOFOLLOW_LINKS);
+          long modified = attributes.lastModifiedTime().toMillis();
+          if (modified > now - RACY_DELAY_MS) {
+            // a modification in the same timestamp tick would not be seen
+            return Optional.empty();
+          }
+          sb.append(modified).append(':').append(attributes.size()).append(';');
+        } catch (NoSuchFileException ex) {
+          sb.append("deleted;");
+        }
+      }
+    } catch (IOException ex) {
+      return Optional.empty();
+    }
+    return Optional.of(sb.toString());
+  }
+
+  /**
+   * Fingerprints the tags: stat data of the packed-refs file, then the name, the object id and the
+   * object type of every loose tag reference. Replacing a lightweight tag by an annotated one of
+   * the same name is seen even if the reference file keeps its size and timestamp.
+   *
+   * @return a string changing whenever a tag is added, moved, removed or retyped, empty if the
+   *     packed-refs file was modified too recently for its timestamp to be trusted
+   */
+  public Optional<String> tagsFingerprint() {
+    File packedRefs = getPackedRefsFile();
+    long modified = packedRefs.lastModified();
+    if (modified > System.currentTimeMillis() - RACY_DELAY_MS) {
+      return Optional.empty();
+    }
+    StringBuilder sb = new StringBuilder();
+    sb.append("packed-refs:").append(modified).append(':').append(packedRefs.length()).append(';');
+    try {
+      appendLooseTags(sb, getTagsDirectory(), "");
+    } catch (IOException ex) {
+      return Optional.empty();
+    }
+    return Optional.of(sb.toString());
+  }
+
+  private void appendLooseTags(StringBuilder sb, File dir, String prefix) throws IOException {
+    File[] children = dir.listFiles();
+    if (children == null) {
+      return;
+    }
+    Arrays.sort(children, Comparator.comparing(File::getName));
+    for (File child : children) {
+      if (child.isDirectory()) {
+        appendLooseTags(sb, child, prefix + child.getName() + "/");
+      } else {
+        String objectId = readFirstLine(child);
+        sb.append(prefix).append(child.getName()).append(':').append(objectId).append(':');
+        sb.append(looseObjectType(objectId)).append(';');
+      }
+    }
+  }
+
+  /**
+   * Reads the type of a loose object from its header, {@code commit} for a lightweight tag and
+   * {@code tag} for an annotated one.
+   *
+   * @param objectId the object id
+   * @return the object type or {@code packed} if the object is not stored loose
+   */
+  private String looseObjectType(String objectId) throws IOException {
+    if (objectId == null || objectId.length() < 3) {
+      return "unknown";
+    }
+    File object =
+        new File(
+            commonDir,
+            "objects"
+                + File.separator
+                + objectId.substring(0, 2)
+                + File.separator
+                + objectId.substring(2));
+    if (!object.isFile()) {
+      // the id of a packed object still tells a tag object from the commit it points to
+      return "packed";
+    }
+    try (InputStream in = new InflaterInputStream(Files.newInputStream(object.toPath()))) {
+      StringBuilder type = new StringBuilder();
+      int c;
+      while ((c = in.read()) > 0 && c != ' ' && type.length() < 16) {
+        type.append((char) c);
+      }
+      return type.toString();
+    }
+  }
+
+  /**
+   * Reads the raw content of HEAD, either a symbolic reference like {@code ref: refs/heads/master}
+   * or a commit id when HEAD is detached.
+   *
+   * @return the HEAD content or empty if it cannot be read
+   */
+  public Optional<String> readHead() {
+    try {
+      return Optional.ofNullable(readFirstLine(new File(gitDir, "HEAD")));
+    } catch (IOException ex) {
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Resolves the commit id HEAD points to, following symbolic references through loose and packed
+   * refs.
+   *
+   * @return the commit id or empty if HEAD cannot be resolved (unborn branch, unknown layout)
+   */
+  public Optional<String> resolveHead() {
+    Optional<String> head = readHead();
+    for (int depth = 0; head.isPresent() && depth < 5; depth++) {
+      String value = head.get();
+      if (!value.startsWith(REF_PREFIX)) {
+        return head;
+      }
+      head = resolveRef(value.substring(REF_PREFIX.length()).trim());
+    }
+    return Optional.empty();
+  }
+
+  private Optional<String> resolveRef(String refName) {
+    try {
+      for (File dir : new File[] {gitDir, commonDir}) {
+        File loose = new File(dir, refName.replace('/', File.separatorChar));
+        if (loose.isFile()) {
+          return Optional.ofNullable(readFirstLine(loose));
+        }
+      }
+
+      File packedRefs = getPackedRefsFile();
+      if (packedRefs.isFile()) {
+        try (BufferedReader reader =
+            Files.newBufferedReader(packedRefs.toPath(), StandardCharsets.UTF_8)) {
+          String line;
+          while ((line = reader.readLine()) != null) {
+            int space = line.indexOf(' ');
+            if (space > 0 && !line.startsWith("#") && line.substring(space + 1).equals(refName)) {
+              return Optional.of(line.substring(0, space));
+            }
+          }
+        }
+      }
+    } catch (IOException ignore) {
+      // fall through, the reference cannot be resolved
+    }
+    return Optional.empty();
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver.jfr;
+
+import java.io.File;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Emits the JDK Flight Recorder events of jgitver.
+ *
+ * <p>Events are only created while a recording enables them, other calls return a shared no-op
+ * {@link Span} without allocating anything. On JDKs without Flight Recorder the event classes are
+ * never loaded and all calls return the no-op span.
+ */
+public final class JGitverEvents {
+  /** An event under way, its duration is measured until {@link #finish()}. */
+  public interface Span {
+    Span cacheHit(boolean cacheHit);
+
+    Span version(String version);
+
+    void finish();
+  }
+
+  private static final Span NONE =
+      new Span() {
+        @Override
+        public Span cacheHit(boolean cacheHit) {
+          return this;
+        }
+
+        @Override
+        public Span version(String version) {
+          return this;
+        }
+
+        @Override
+        public void finish() {}
+      };
+
+  private static final boolean AVAILABLE = isFlightRecorderAvailable();
+
+  private JGitverEvents() {}
+
+  public static Span versionComputation(File directory) {
+    return AVAILABLE ? orNone(Events.versionComputation(path(directory))) : NONE;
+  }
+
+  public static Span modelProvision(File pom) {
+    return AVAILABLE ? orNone(Events.modelProvision(path(pom))) : NONE;
+  }
+
+  public static Span pomRewrite(File pom) {
+    return AVAILABLE ? orNone(Events.pomRewrite(path(pom))) : NONE;
+  }
+
+  public static Span configLoad(File configuration) {
+    return AVAILABLE ? orNone(Events.configLoad(path(configuration))) : NONE;
+  }
+
+  private static Span orNone(Span span) {
+    return span != null ? span : NONE;
+  }
+
+  private static String path(File file) {
+    return file == null ? null : file.getPath();
+  }
+
+  private static boolean isFlightRecorderAvailable() {
+    try {
+      Class.forName("jdk.jfr.Event", false, JGitverEvents.class.getClassLoader());
+      return true;
+    } catch (ClassNotFoundException | LinkageError ex) {
+      return false;
+    }
+  }
+
+  /**
+   * Only referenced once Flight Recorder is known to be available, loading it links the event
+   * classes.
+   */
+  private static final class Events {
+    private Events() {}
+
+    static Span versionComputation(String path) {
+      return isEnabled(JGitverVersionComputation.class)
+          ? start(new JGitverVersionComputation(path))
+          : null;
+    }
+
+    static Span modelProvision(String path) {
+      return isEnabled(JGitverModelProvision.class) ? start(new JGitverModelProvision(path)) : null;
+    }
+
+    static Span pomRewrite(String path) {
+      return isEnabled(JGitverPomRewrite.class) ? start(new JGitverPomRewrite(path)) : null;
+    }
+
+    static Span configLoad(String path) {
+      return isEnabled(JGitverConfigLoad.class) ? start(new JGitverConfigLoad(path)) : null;
+    }
+
+    private static boolean isEnabled(Class<? extends jdk.jfr.Event> eventClass) {
+      // no recording was ever started in this JVM, the common case, costs a static read only
+      return FlightRecorder.isInitialized() && EventType.getEventType(eventClass).isEnabled();
+    }
+
+    private static <E extends jdk.jfr.Event & Span> Span start(E event) {
+      event.begin();
+      return event;
+    }
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Provisioning of a pom model with the computed version. */
+@Name("fr.brouillard.oss.jgitver.ModelProvision")
+@Label("jgitver Model Provision")
+@Category("jgitver")
+@Description("Provisioning of a pom model with the computed version.")
+public final class JGitverModelProvision extends jdk.jfr.Event implements JGitverEvents.Span {
+  @Label("Module Path")
+  @Description("The pom file of the model")
+  String modulePath;
+
+  @Label("Cache Hit")
+  @Description("True if the model was reused from the model cache of the session")
+  boolean cacheHit;
+
+  @Label("Version")
+  String version;
+
+  JGitverModelProvision(String modulePath) {
+    this.modulePath = modulePath;
+  }
+
+  @Override
+  public JGitverEvents.Span cacheHit(boolean cacheHit) {
+    this.cacheHit = cacheHit;
+    return this;
+  }
+
+  @Override
+  public JGitverEvents.Span version(String version) {
+    this.version = version;
+    return this;
+  }
+
+  @Override
+  public void finish() {
+    commit();
+  }
+}
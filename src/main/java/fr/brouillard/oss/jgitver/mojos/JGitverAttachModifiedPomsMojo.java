@@ -16,8 +16,10 @@
 package fr.brouillard.oss.jgitver.mojos;
 
 import fr.brouillard.oss.jgitver.JGitverSession;
+import fr.brouillard.oss.jgitver.JGitverSessionHandoff;
+import fr.brouillard.oss.jgitver.JGitverTimings.Stage;
 import fr.brouillard.oss.jgitver.JGitverUtils;
-import java.util.Objects;
+import java.util.Optional;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -40,34 +42,37 @@ public class JGitverAttachModifiedPomsMojo extends AbstractMojo {
   @Parameter(property = "jgitver.resolve-project-version", defaultValue = "false")
   private Boolean resolveProjectVersion;
 
+  @Parameter(property = "jgitver.pom-rewrite-threads", defaultValue = "0")
+  private int pomRewriteThreads;
+
   @Override
   public void execute() throws MojoExecutionException {
-    if (Objects.isNull(
-        mavenSession.getUserProperties().get(JGitverUtils.SESSION_MAVEN_PROPERTIES_KEY))) {
-      getLog()
-          .warn(
-              GOAL_ATTACH_MODIFIED_POMS
-                  + "shouldn't be executed alone. The Mojo "
-                  + "is a part of the plugin and executed automatically.");
-      return;
-    }
-
-    String content =
-        mavenSession.getUserProperties().getProperty((JGitverUtils.SESSION_MAVEN_PROPERTIES_KEY));
-    if ("-".equalsIgnoreCase(content)) {
+    if (JGitverSessionHandoff.isAttached(mavenSession)) {
       // We don't need to attach modified poms anymore.
       return;
     }
 
     try {
-      JGitverSession jgitverSession = JGitverSession.serializeFrom(content);
+      Optional<JGitverSession> jgitverSession = JGitverSessionHandoff.lookup(mavenSession);
+      if (!jgitverSession.isPresent()) {
+        getLog()
+            .warn(
+                GOAL_ATTACH_MODIFIED_POMS
+                    + "shouldn't be executed alone. The Mojo "
+                    + "is a part of the plugin and executed automatically.");
+        return;
+      }
+
+      long start = System.nanoTime();
       JGitverUtils.attachModifiedPomFilesToTheProject(
           mavenSession.getAllProjects(),
-          jgitverSession.getProjects(),
-          jgitverSession.getVersion(),
+          jgitverSession.get().getProjects(),
+          jgitverSession.get().getVersion(),
           resolveProjectVersion,
-          new ConsoleLogger());
-      mavenSession.getUserProperties().setProperty(JGitverUtils.SESSION_MAVEN_PROPERTIES_KEY, "-");
+          new ConsoleLogger(),
+          pomRewriteThreads);
+      JGitverSessionHandoff.recordTiming(mavenSession, Stage.POM_ATTACH, start);
+      JGitverSessionHandoff.markAttached(mavenSession);
     } catch (Exception ex) {
       throw new MojoExecutionException(
           "Unable to execute goal: " + JGitverAttachModifiedPomsMojo.GOAL_ATTACH_MODIFIED_POMS, ex);
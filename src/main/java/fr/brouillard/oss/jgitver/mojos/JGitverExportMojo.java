@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver.mojos;
+
+import fr.brouillard.oss.jgitver.JGitverInformationProvider;
+import fr.brouillard.oss.jgitver.JGitverSession;
+import fr.brouillard.oss.jgitver.JGitverSessionHandoff;
+import fr.brouillard.oss.jgitver.cache.VersionFiles;
+import java.io.File;
+import java.io.IOException;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Exports the version and metadatas computed by the jgitver extension, so that later builds of the
+ * same commit can reuse them with {@code -Djgitver.import=<file>} without opening the git
+ * repository.
+ */
+@Mojo(name = "export", defaultPhase = LifecyclePhase.NONE, aggregator = true, threadSafe = true)
+public class JGitverExportMojo extends AbstractMojo {
+  @Parameter(defaultValue = "${session}", readonly = true)
+  private MavenSession mavenSession;
+
+  @Parameter(
+      property = "jgitver.export.file",
+      defaultValue = "${project.build.directory}/jgitver.properties")
+  private File exportFile;
+
+  @Override
+  public void execute() throws MojoExecutionException {
+    // the computation is exported as computed, whatever metadatas are published as properties or
+    // the version forced by jgitver.use-version
+    JGitverInformationProvider computation;
+    try {
+      computation =
+          JGitverSessionHandoff.lookup(mavenSession)
+              .map(JGitverSession::getComputation)
+              .orElseThrow(
+                  () ->
+                      new MojoExecutionException(
+                          "no jgitver computation to export, is jgitver-maven-plugin declared as"
+                              + " an extension?"));
+    } catch (IOException ex) {
+      throw new MojoExecutionException("cannot read the jgitver session", ex);
+    }
+
+    try {
+      VersionFiles.write(exportFile, computation, "jgitver exported version");
+      getLog().info("jgitver version " + computation.getVersion() + " exported to " + exportFile);
+    } catch (IOException ex) {
+      throw new MojoExecutionException("cannot export jgitver version to " + exportFile, ex);
+    }
+  }
+}
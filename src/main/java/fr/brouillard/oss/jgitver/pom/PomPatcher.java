@@ -0,0 +1,658 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver.pom;
+
+import fr.brouillard.oss.jgitver.GAV;
+import fr.brouillard.oss.jgitver.JGitverUtils;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.maven.model.Scm;
+
+/**
+ * Changes the versions of a pom file in place, keeping everything else (formatting, comments,
+ * element order) untouched.
+ *
+ * <p>The patcher applies the same changes as a {@code MavenXpp3Reader} / {@code MavenXpp3Writer}
+ * round trip: project and parent versions of registered projects, scm tag and optionally the {@code
+ * ${project.version}} references. Only the text of the concerned elements is replaced. Poms using
+ * constructs the patcher does not handle (doctype, comments or CDATA inside a patched element,
+ * missing anchor elements...) are reported as not patchable, callers then fall back to the model
+ * round trip.
+ */
+public final class PomPatcher {
+  private static final Pattern ENCODING_DECLARATION =
+      Pattern.compile("encoding\\s*=\\s*(['\"])([^'\"]+)\\1");
+  private static final String SCM = "project/scm";
+  private static final String SCM_TAG = "project/scm/tag";
+  private static final String PROPERTIES = "project/properties/";
+  private static final Set<String> PROJECT_VERSION_REFERENCES =
+      new HashSet<>(
+          Arrays.asList(
+              "project/dependencies/dependency/version",
+              "project/dependencyManagement/dependencies/dependency/version",
+              "project/build/plugins/plugin/dependencies/dependency/version",
+              "project/build/pluginManagement/plugins/plugin/dependencies/dependency/version"));
+  private static final Set<String> LEAVES =
+      new HashSet<>(
+          Arrays.asList(
+              "project/groupId",
+              "project/artifactId",
+              "project/version",
+              "project/parent/groupId",
+              "project/parent/artifactId",
+              "project/parent/version",
+              SCM_TAG));
+
+  private final Set<GAV> gavs;
+  private final String version;
+  private final boolean resolveProjectVersion;
+
+  /**
+   * Builds a patcher setting the given version.
+   *
+   * @param gavs the registered projects, whose versions are changed
+   * @param version the version to set
+   * @param resolveProjectVersion true to also replace the {@code ${project.version}} references
+   */
+  public PomPatcher(Set<GAV> gavs, String version, boolean resolveProjectVersion) {
+    this.gavs = gavs;
+    this.version = version;
+    this.resolveProjectVersion = resolveProjectVersion;
+  }
+
+  /**
+   * Patches the given pom file, using the encoding of the file.
+   *
+   * @param source the pom file to patch
+   * @param projectScm the scm of the built project, whose tag is reported in the pom, can be null
+   * @return the content of the patched pom, empty if the pom cannot be patched
+   * @throws IOException if the file cannot be read
+   */
+  public Optional<byte[]> patch(File source, Scm projectScm) throws IOException {
+    return patch(Files.readAllBytes(source.toPath()), projectScm);
+  }
+
+  /**
+   * Patches the given pom content, using the encoding declared by the content.
+   *
+   * @param bytes the raw content of the pom to patch
+   * @param projectScm the scm of the built project, whose tag is reported in the pom, can be null
+   * @return the content of the patched pom, empty if the pom cannot be patched
+   */
+  public Optional<byte[]> patch(byte[] bytes, Scm projectScm) {
+    Optional<Charset> charset = encodingOf(bytes);
+    if (!charset.isPresent()) {
+      return Optional.empty();
+    }
+
+    String content;
+    try {
+      content =
+          charset
+              .get()
+              .newDecoder()
+              .onMalformedInput(CodingErrorAction.REPORT)
+              .onUnmappableCharacter(CodingErrorAction.REPORT)
+              .decode(ByteBuffer.wrap(bytes))
+              .toString();
+    } catch (CharacterCodingException ex) {
+      return Optional.empty();
+    }
+
+    return patch(content, projectScm).map(patched -> patched.getBytes(charset.get()));
+  }
+
+  /**
+   * Finds the encoding declared by the xml declaration, UTF-8 by default. Only encodings compatible
+   * with ASCII are handled, so that the content is written back byte for byte.
+   */
+  private static Optional<Charset> encodingOf(byte[] bytes) {
+    if (bytes.length >= 2
+        && ((bytes[0] == (byte) 0xFE && bytes[1] == (byte) 0xFF)
+            || (bytes[0] == (byte) 0xFF && bytes[1] == (byte) 0xFE)
+            || bytes[0] == 0
+            || bytes[1] == 0)) {
+      // UTF-16 & UTF-32
+      return Optional.empty();
+    }
+    int offset = startsWithUtf8Bom(bytes) ? 3 : 0;
+    String head =
+        new String(
+            bytes, offset, Math.min(bytes.length - offset, 256), StandardCharsets.ISO_8859_1);
+    if (!head.startsWith("<?xml")) {
+      return Optional.of(StandardCharsets.UTF_8);
+    }
+
+    Matcher matcher = ENCODING_DECLARATION.matcher(head.substring(0, head.indexOf("?>") + 1));
+    if (!matcher.find()) {
+      return Optional.of(StandardCharsets.UTF_8);
+    }
+    try {
+      Charset charset = Charset.forName(matcher.group(2));
+      boolean asciiCompatible =
+          Arrays.equals("<?xml".getBytes(charset), "<?xml".getBytes(StandardCharsets.US_ASCII));
+      return asciiCompatible ? Optional.of(charset) : Optional.empty();
+    } catch (IllegalArgumentException ex) {
+      return Optional.empty();
+    }
+  }
+
+  private static boolean startsWithUtf8Bom(byte[] bytes) {
+    return bytes.length >= 3
+        && bytes[0] == (byte) 0xEF
+        && bytes[1] == (byte) 0xBB
+        && bytes[2] == (byte) 0xBF;
+  }
+
+  /**
+   * Patches the given pom content.
+   *
+   * @param pom the content of a pom file
+   * @param projectScm the scm of the built project, whose tag is reported in the pom, can be null
+   * @return the patched content or empty if the pom cannot be patched
+   */
+  public Optional<String> patch(String pom, Scm projectScm) {
+    Scan scan = new Scan(pom, resolveProjectVersion);
+    if (!scan.run()) {
+      return Optional.empty();
+    }
+
+    List<Replacement> replacements = new ArrayList<>();
+    Leaf groupId = scan.leaf("project/groupId");
+    Leaf artifactId = scan.leaf("project/artifactId");
+    Leaf projectVersion = scan.leaf("project/version");
+    Leaf parentGroupId = scan.leaf("project/parent/groupId");
+    Leaf parentArtifactId = scan.leaf("project/parent/artifactId");
+    Leaf parentVersion = scan.leaf("project/parent/version");
+    for (Leaf leaf :
+        Arrays.asList(
+            groupId, artifactId, projectVersion, parentGroupId, parentArtifactId, parentVersion)) {
+      if (leaf != null && leaf.complex) {
+        return Optional.empty();
+      }
+    }
+
+    GAV projectGav =
+        new GAV(
+            valueOf(groupId != null ? groupId : parentGroupId),
+            valueOf(artifactId),
+            valueOf(projectVersion != null ? projectVersion : parentVersion));
+    if (gavs.contains(projectGav)) {
+      if (!set(replacements, projectVersion, artifactId, "version", version)) {
+        return Optional.empty();
+      }
+
+      if (projectScm != null && scan.elements.containsKey(SCM)) {
+        String tag = projectScm.getTag() == null ? "HEAD" : projectScm.getTag();
+        Leaf tagLeaf = scan.leaf(SCM_TAG);
+        if (tagLeaf != null) {
+          if (!tag.equals(tagLeaf.value) && !replace(replacements, tagLeaf, tag)) {
+            return Optional.empty();
+          }
+        } else if (!"HEAD".equals(tag)) {
+          Element scm = scan.elements.get(SCM);
+          String indent = scan.firstChildIndent(scm);
+          if (indent == null) {
+            return Optional.empty();
+          }
+          replacements.add(
+              new Replacement(
+                  scm.lastChildEnd, scm.lastChildEnd, indent + "<tag>" + escape(tag) + "</tag>"));
+        }
+      }
+    }
+
+    if (scan.elements.containsKey("project/parent")) {
+      GAV parentGav =
+          new GAV(valueOf(parentGroupId), valueOf(parentArtifactId), valueOf(parentVersion));
+      if (gavs.contains(parentGav)
+          && !set(replacements, parentVersion, parentArtifactId, "version", version)) {
+        return Optional.empty();
+      }
+    }
+
+    if (resolveProjectVersion) {
+      for (Leaf leaf : scan.leaves) {
+        if (isReference(leaf.path, leaf.depth)
+            && JGitverUtils.PROJECT_VERSION.equals(leaf.value)
+            && !replace(replacements, leaf, version)) {
+          return Optional.empty();
+        }
+      }
+    }
+
+    if (replacements.isEmpty()) {
+      return Optional.of(pom);
+    }
+    replacements.sort(Comparator.comparingInt(r -> r.start));
+    int length = pom.length();
+    for (Replacement replacement : replacements) {
+      length += replacement.text.length() - (replacement.end - replacement.start);
+    }
+    StringBuilder patched = new StringBuilder(length);
+    int copied = 0;
+    for (Replacement replacement : replacements) {
+      patched.append(pom, copied, replacement.start).append(replacement.text);
+      copied = replacement.end;
+    }
+    patched.append(pom, copied, pom.length());
+    return Optional.of(patched.toString());
+  }
+
+  private static boolean isReference(String path, int depth) {
+    return PROJECT_VERSION_REFERENCES.contains(path) || (path.startsWith(PROPERTIES) && depth == 3);
+  }
+
+  /** Replaces the value of the given leaf, or inserts it after the given sibling if absent. */
+  private static boolean set(
+      List<Replacement> replacements, Leaf leaf, Leaf previousSibling, String name, String value) {
+    if (leaf != null) {
+      return value.equals(leaf.value) || replace(replacements, leaf, value);
+    }
+    if (previousSibling == null || previousSibling.indent == null) {
+      return false;
+    }
+    replacements.add(
+        new Replacement(
+            previousSibling.end,
+            previousSibling.end,
+            previousSibling.indent + "<" + name + ">" + escape(value) + "</" + name + ">"));
+    return true;
+  }
+
+  private static boolean replace(List<Replacement> replacements, Leaf leaf, String value) {
+    if (leaf.complex) {
+      return false;
+    }
+    if (leaf.selfClosing) {
+      replacements.add(
+          new Replacement(
+              leaf.start,
+              leaf.end,
+              "<" + leaf.qualifiedName + ">" + escape(value) + "</" + leaf.qualifiedName + ">"));
+    } else {
+      replacements.add(new Replacement(leaf.contentStart, leaf.contentEnd, escape(value)));
+    }
+    return true;
+  }
+
+  private static String valueOf(Leaf leaf) {
+    return leaf == null ? null : leaf.value;
+  }
+
+  private static String escape(String value) {
+    return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+  }
+
+  private static final class Replacement {
+    private final int start;
+    private final int end;
+    private final String text;
+
+    private Replacement(int start, int end, String text) {
+      this.start = start;
+      this.end = end;
+      this.text = text;
+    }
+  }
+
+  /** Path of elements from the root, shared by all the elements having the same path. */
+  private static final class PathNode {
+    private final String name;
+    private final String path;
+    private final int depth;
+    private final boolean leaf;
+    private final boolean withReferences;
+    private final List<PathNode> children = new ArrayList<>(4);
+
+    private PathNode(String name, String path, int depth, boolean withReferences) {
+      this.name = name;
+      this.path = path;
+      this.depth = depth;
+      this.withReferences = withReferences;
+      this.leaf = LEAVES.contains(path) || (withReferences && isReference(path, depth));
+    }
+
+    private PathNode child(String xml, int nameStart, int nameEnd) {
+      int length = nameEnd - nameStart;
+      for (PathNode child : children) {
+        if (child.name.length() == length && xml.regionMatches(nameStart, child.name, 0, length)) {
+          return child;
+        }
+      }
+      String childName = xml.substring(nameStart, nameEnd);
+      PathNode child =
+          new PathNode(
+              childName,
+              path.isEmpty() ? childName : path + "/" + childName,
+              depth + 1,
+              withReferences);
+      children.add(child);
+      return child;
+    }
+  }
+
+  /** Element being scanned, or an element of interest once closed. */
+  private static final class Element {
+    private final PathNode node;
+    private final int start;
+    private final int nameStart;
+    private final int nameEnd;
+    private final int indentStart;
+    private final int indentEnd;
+    private int contentStart;
+    private boolean hasChildren;
+    private int firstChildIndentStart = -1;
+    private int firstChildIndentEnd = -1;
+    private int lastChildEnd;
+
+    private Element(
+        PathNode node, int start, int nameStart, int nameEnd, int indentStart, int indentEnd) {
+      this.node = node;
+      this.start = start;
+      this.nameStart = nameStart;
+      this.nameEnd = nameEnd;
+      this.indentStart = indentStart;
+      this.indentEnd = indentEnd;
+    }
+  }
+
+  /** Text only element whose value might be read or replaced. */
+  private static final class Leaf {
+    private final String path;
+    private final String qualifiedName;
+    private final int depth;
+    private final int start;
+    private final int end;
+    private final int contentStart;
+    private final int contentEnd;
+    private final boolean selfClosing;
+    private final boolean complex;
+    private final String indent;
+    private final String value;
+
+    private Leaf(String xml, Element element, int end, int contentEnd, boolean selfClosing) {
+      this.path = element.node.path;
+      this.qualifiedName = xml.substring(element.nameStart, element.nameEnd);
+      this.depth = element.node.depth;
+      this.start = element.start;
+      this.end = end;
+      this.contentStart = element.contentStart;
+      this.contentEnd = contentEnd;
+      this.selfClosing = selfClosing;
+      this.indent =
+          element.indentStart < 0 ? null : xml.substring(element.indentStart, element.indentEnd);
+      String raw = xml.substring(contentStart, contentEnd);
+      this.complex = raw.indexOf('<') >= 0;
+      this.value = complex ? null : decode(raw.trim());
+    }
+  }
+
+  /** Minimal XML scanner keeping track of the offsets of the elements of interest. */
+  private static final class Scan {
+    private final String xml;
+    private final PathNode root;
+    private final Deque<Element> stack = new ArrayDeque<>();
+    private final List<Leaf> leaves = new ArrayList<>();
+    private final Map<String, Element> elements = new HashMap<>();
+    private int pos;
+    private int lastTagEnd;
+
+    private Scan(String xml, boolean withReferences) {
+      this.xml = xml;
+      this.root = new PathNode("", "", 0, withReferences);
+    }
+
+    private Leaf leaf(String path) {
+      for (Leaf leaf : leaves) {
+        if (leaf.path.equals(path)) {
+          return leaf;
+        }
+      }
+      return null;
+    }
+
+    private String firstChildIndent(Element element) {
+      return element.firstChildIndentStart < 0
+          ? null
+          : xml.substring(element.firstChildIndentStart, element.firstChildIndentEnd);
+    }
+
+    private boolean run() {
+      boolean rootSeen = false;
+      while (true) {
+        int lt = xml.indexOf('<', pos);
+        if (lt < 0) {
+          return rootSeen && stack.isEmpty();
+        }
+        if (xml.startsWith("<!--", lt)) {
+          pos = skipPast(lt, "-->");
+        } else if (xml.startsWith("<![CDATA[", lt)) {
+          pos = skipPast(lt, "]]>");
+        } else if (xml.startsWith("<?", lt)) {
+          pos = skipPast(lt, "?>");
+        } else if (xml.startsWith("<!", lt)) {
+          // doctypes might declare entities
+          return false;
+        } else if (xml.startsWith("</", lt)) {
+          if (!closeTag(lt)) {
+            return false;
+          }
+        } else {
+          if (stack.isEmpty() && rootSeen) {
+            return false;
+          }
+          if (!openTag(lt)) {
+            return false;
+          }
+          rootSeen = true;
+        }
+        if (pos < 0) {
+          return false;
+        }
+      }
+    }
+
+    private int skipPast(int from, String end) {
+      int index = xml.indexOf(end, from);
+      return index < 0 ? -1 : index + end.length();
+    }
+
+    private boolean openTag(int lt) {
+      int nameStart = lt + 1;
+      int nameEnd = nameStart;
+      while (nameEnd < xml.length() && isNameChar(xml.charAt(nameEnd))) {
+        nameEnd++;
+      }
+      if (nameEnd == nameStart) {
+        return false;
+      }
+
+      int gt = nameEnd;
+      char quote = 0;
+      for (; gt < xml.length(); gt++) {
+        char c = xml.charAt(gt);
+        if (quote != 0) {
+          if (c == quote) {
+            quote = 0;
+          }
+        } else if (c == '"' || c == '\'') {
+          quote = c;
+        } else if (c == '>') {
+          break;
+        }
+      }
+      if (gt >= xml.length()) {
+        return false;
+      }
+      boolean selfClosing = xml.charAt(gt - 1) == '/';
+
+      Element parent = stack.peek();
+      PathNode node =
+          (parent == null ? root : parent.node)
+              .child(xml, localNameStart(nameStart, nameEnd), nameEnd);
+      if (parent == null && !"project".equals(node.path)) {
+        return false;
+      }
+      boolean indented = isBlank(lastTagEnd, lt);
+      if (parent != null) {
+        if (!parent.hasChildren && indented) {
+          parent.firstChildIndentStart = lastTagEnd;
+          parent.firstChildIndentEnd = lt;
+        }
+        parent.hasChildren = true;
+      }
+
+      Element element =
+          new Element(node, lt, nameStart, nameEnd, indented ? lastTagEnd : -1, indented ? lt : -1);
+      element.contentStart = gt + 1;
+      pos = gt + 1;
+      lastTagEnd = pos;
+
+      if (selfClosing) {
+        if (SCM.equals(node.path) || "project/parent".equals(node.path)) {
+          elements.putIfAbsent(node.path, element);
+        }
+        if (node.leaf) {
+          leaves.add(new Leaf(xml, element, pos, element.contentStart, true));
+        }
+        if (parent != null) {
+          parent.lastChildEnd = pos;
+        }
+      } else {
+        stack.push(element);
+      }
+      return true;
+    }
+
+    private boolean closeTag(int lt) {
+      int gt = xml.indexOf('>', lt);
+      if (gt < 0 || stack.isEmpty()) {
+        return false;
+      }
+      Element element = stack.pop();
+      int nameLength = element.nameEnd - element.nameStart;
+      if (!xml.regionMatches(lt + 2, xml, element.nameStart, nameLength)
+          || !isBlank(lt + 2 + nameLength, gt)) {
+        return false;
+      }
+      pos = gt + 1;
+
+      if (!element.hasChildren && element.node.leaf) {
+        leaves.add(new Leaf(xml, element, pos, lt, false));
+      } else if (element.hasChildren) {
+        element.lastChildEnd = lastTagEnd;
+      }
+      String path = element.node.path;
+      if (SCM.equals(path) || "project/parent".equals(path)) {
+        elements.putIfAbsent(path, element);
+      }
+
+      Element parent = stack.peek();
+      if (parent != null) {
+        parent.lastChildEnd = pos;
+      }
+      lastTagEnd = pos;
+      return true;
+    }
+
+    private boolean isBlank(int from, int to) {
+      for (int i = from; i < to; i++) {
+        if (!Character.isWhitespace(xml.charAt(i))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private int localNameStart(int nameStart, int nameEnd) {
+      for (int i = nameStart; i < nameEnd; i++) {
+        if (xml.charAt(i) == ':') {
+          return i + 1;
+        }
+      }
+      return nameStart;
+    }
+
+    private static boolean isNameChar(char c) {
+      return !Character.isWhitespace(c) && c != '>' && c != '/';
+    }
+  }
+
+  private static final Map<String, String> ENTITIES;
+
+  static {
+    Map<String, String> entities = new HashMap<>();
+    entities.put("amp", "&");
+    entities.put("lt", "<");
+    entities.put("gt", ">");
+    entities.put("quot", "\"");
+    entities.put("apos", "'");
+    ENTITIES = Collections.unmodifiableMap(entities);
+  }
+
+  private static String decode(String text) {
+    if (text.indexOf('&') < 0) {
+      return text;
+    }
+    StringBuilder sb = new StringBuilder(text.length());
+    int i = 0;
+    while (i < text.length()) {
+      char c = text.charAt(i);
+      int semicolon = c == '&' ? text.indexOf(';', i) : -1;
+      if (semicolon < 0) {
+        sb.append(c);
+        i++;
+        continue;
+      }
+      String entity = text.substring(i + 1, semicolon);
+      try {
+        if (entity.startsWith("#x")) {
+          sb.appendCodePoint(Integer.parseInt(entity.substring(2), 16));
+        } else if (entity.startsWith("#")) {
+          sb.appendCodePoint(Integer.parseInt(entity.substring(1)));
+        } else {
+          sb.append(ENTITIES.getOrDefault(entity, "&" + entity + ";"));
+        }
+      } catch (IllegalArgumentException ex) {
+        // not a valid character reference, kept as is
+        sb.append('&').append(entity).append(';');
+      }
+      i = semicolon + 1;
+    }
+    return sb.toString();
+  }
+}
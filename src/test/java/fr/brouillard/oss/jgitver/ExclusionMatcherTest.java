@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+public class ExclusionMatcherTest {
+  @Test
+  public void excludes_directories_and_their_children_only() throws Exception {
+    File root = com.google.common.io.Files.createTempDir().getCanonicalFile();
+    ExclusionMatcher matcher =
+        ExclusionMatcher.compile(root, Arrays.asList("a/lib", "target/local-repo", "target/it/**"));
+
+    assertThat(matcher.isExcluded(new File(root, "a/lib")), is(true));
+    assertThat(matcher.isExcluded(new File(root, "a/lib/sub/module")), is(true));
+    assertThat(matcher.isExcluded(new File(root, "a/library")), is(false));
+    assertThat(matcher.isExcluded(new File(root, "b/a/lib")), is(false));
+    assertThat(matcher.isExcluded(new File(root, "a")), is(false));
+    assertThat(matcher.isExcluded(root), is(false));
+
+    assertThat(matcher.isExcluded(new File(root, "target/local-repo/org/pom")), is(true));
+    assertThat(matcher.isExcluded(new File(root, "target/it/issue-1")), is(true));
+    assertThat(matcher.isExcluded(new File(root, "target/it/issue-1/module")), is(true));
+    assertThat(matcher.isExcluded(new File(root, "target/classes")), is(false));
+
+    // answers are memoized
+    assertThat(matcher.isExcluded(new File(root, "a/lib")), is(true));
+    assertThat(matcher.isExcluded(new File(root, "a/library")), is(false));
+  }
+
+  @Test
+  public void nothing_is_excluded_without_exclusions() {
+    File root = com.google.common.io.Files.createTempDir();
+    assertThat(ExclusionMatcher.compile(root, Collections.emptyList()).isExcluded(root), is(false));
+    assertThat(ExclusionMatcher.NONE.isExcluded(root), is(false));
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.model.Profile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the capture of the GAV of large models, with and without the former model clone.
+ *
+ * <p>Allocation figures are given by the gc profiler ({@code gc.alloc.rate.norm}), the main method
+ * enables it; from the JMH command line use {@code -prof gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GavCaptureBenchmark {
+  @Param({"10", "200"})
+  private int dependencies;
+
+  private Model model;
+
+  @Setup
+  public void setup() {
+    model = new Model();
+    model.setModelVersion("4.0.0");
+    model.setArtifactId("benchmark");
+    Parent parent = new Parent();
+    parent.setGroupId("fr.brouillard.oss.benchmark");
+    parent.setArtifactId("parent");
+    parent.setVersion("0");
+    model.setParent(parent);
+
+    model.setBuild(new Build());
+    for (int i = 0; i < dependencies; i++) {
+      Dependency dependency = new Dependency();
+      dependency.setGroupId("fr.brouillard.oss.benchmark");
+      dependency.setArtifactId("dependency-" + i);
+      dependency.setVersion("1.0." + i);
+      model.addDependency(dependency);
+
+      if (i % 10 == 0) {
+        Plugin plugin = new Plugin();
+        plugin.setArtifactId("plugin-" + i);
+        PluginExecution execution = new PluginExecution();
+        execution.setId("execution-" + i);
+        execution.addGoal("goal");
+        plugin.addExecution(execution);
+        plugin.addDependency(dependency.clone());
+        model.getBuild().addPlugin(plugin);
+
+        Profile profile = new Profile();
+        profile.setId("profile-" + i);
+        profile.addDependency(dependency.clone());
+        model.addProfile(profile);
+      }
+    }
+  }
+
+  @Benchmark
+  public GAV captureFromClone() {
+    return GAV.from(model.clone());
+  }
+
+  @Benchmark
+  public GAV capture() {
+    return GAV.from(model);
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(
+            new OptionsBuilder()
+                .include(GavCaptureBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+        .run();
+  }
+}
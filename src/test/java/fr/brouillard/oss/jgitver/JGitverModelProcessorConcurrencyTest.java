@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import fr.brouillard.oss.jgitver.cfg.Configuration;
+import java.io.File;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.building.FileModelSource;
+import org.apache.maven.model.building.ModelProcessor;
+import org.apache.maven.model.io.DefaultModelReader;
+import org.apache.maven.plugin.internal.DefaultLegacySupport;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.junit.Test;
+
+public class JGitverModelProcessorConcurrencyTest {
+  private static final int THREADS = 16;
+  private static final int POMS = 2000;
+  private static final String VERSION = "1.2.3-SNAPSHOT";
+
+  @Test
+  public void no_project_is_lost_when_models_are_provisioned_concurrently() throws Exception {
+    File root = com.google.common.io.Files.createTempDir().getCanonicalFile();
+    List<File> poms = new ArrayList<>();
+    Set<GAV> expected = new HashSet<>();
+    for (int i = 0; i < POMS; i++) {
+      File module = new File(root, "modules/module-" + i);
+      module.mkdirs();
+      File pom = new File(module, "pom.xml");
+      Files.write(
+          pom.toPath(),
+          ("<project><modelVersion>4.0.0</modelVersion>"
+                  + "<groupId>fr.brouillard.oss.stress</groupId>"
+                  + "<artifactId>module-"
+                  + i
+                  + "</artifactId><version>0</version></project>")
+              .getBytes(StandardCharsets.UTF_8));
+      poms.add(pom);
+      expected.add(new GAV("fr.brouillard.oss.stress", "module-" + i, "0"));
+    }
+
+    JGitverSessionHolder holder = new JGitverSessionHolder();
+    JGitverModelProcessor processor = newProcessor(holder);
+    holder.setSession(
+        new JGitverSession(Providers.fromValues(VERSION, Collections.emptyMap()), root));
+
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<Model>> models = new ArrayList<>();
+      // each pom is read twice, by different threads
+      for (int round = 0; round < 2; round++) {
+        for (File pom : poms) {
+          models.add(
+              executor.submit(
+                  () -> {
+                    start.await();
+                    Map<String, Object> options = new HashMap<>();
+                    options.put(ModelProcessor.SOURCE, new FileModelSource(pom));
+                    options.put(ModelProcessor.IS_STRICT, Boolean.TRUE);
+                    return processor.read(pom, options);
+                  }));
+        }
+      }
+      start.countDown();
+      for (Future<Model> model : models) {
+        assertThat(model.get().getVersion(), is(VERSION));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    JGitverSession session = holder.session().get();
+    assertThat(session.getProjects().size(), is(POMS));
+    assertThat(new HashSet<>(session.getProjects()), is(expected));
+    assertThat(session.getModels().misses() >= POMS, is(true));
+
+    JGitverSession deserialized = JGitverSession.decode(JGitverSession.encode(session));
+    assertThat(
+        new ArrayList<>(deserialized.getProjects()), is(new ArrayList<>(session.getProjects())));
+  }
+
+  @Test
+  public void pom_file_is_kept_on_cache_miss_and_hit() throws Exception {
+    File root = com.google.common.io.Files.createTempDir().getCanonicalFile();
+    // a module pom, the root one also gets the attach mojo registered
+    File pom = new File(root, "module/pom.xml");
+    pom.getParentFile().mkdirs();
+    Files.write(
+        pom.toPath(),
+        ("<project><modelVersion>4.0.0</modelVersion><groupId>fr.brouillard.oss.stress</groupId>"
+                + "<artifactId>module</artifactId><version>0</version></project>")
+            .getBytes(StandardCharsets.UTF_8));
+
+    JGitverSessionHolder holder = new JGitverSessionHolder();
+    JGitverModelProcessor processor = newProcessor(holder);
+    holder.setSession(
+        new JGitverSession(Providers.fromValues(VERSION, Collections.emptyMap()), root));
+
+    Map<String, Object> options = new HashMap<>();
+    options.put(ModelProcessor.SOURCE, new FileModelSource(pom));
+    options.put(ModelProcessor.IS_STRICT, Boolean.TRUE);
+    assertThat(processor.read(pom, options).getPomFile(), is(pom));
+    assertThat(processor.read(pom, options).getPomFile(), is(pom));
+    assertThat(holder.session().get().getModels().hits(), is(1L));
+  }
+
+  private static JGitverModelProcessor newProcessor(JGitverSessionHolder holder) throws Exception {
+    JGitverModelProcessor processor = new JGitverModelProcessor();
+    processor.setModelReader(new DefaultModelReader());
+    inject(processor, "logger", new ConsoleLogger(Logger.LEVEL_WARN, "test"));
+    inject(processor, "legacySupport", new DefaultLegacySupport());
+    inject(processor, "jgitverSession", holder);
+    inject(
+        processor,
+        "configurationProvider",
+        new JGitverConfiguration() {
+          @Override
+          public Configuration getConfiguration() {
+            return new Configuration();
+          }
+
+          @Override
+          public boolean ignore(File pomFile) {
+            return false;
+          }
+
+          @Override
+          public boolean ignoreDirectory(File canonicalDirectory) {
+            return false;
+          }
+        });
+    return processor;
+  }
+
+  private static void inject(Object target, String fieldName, Object value) throws Exception {
+    Field field = target.getClass().getDeclaredField(fieldName);
+    field.setAccessible(true);
+    field.set(target, value);
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Properties;
+import org.apache.maven.execution.MavenSession;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.easymock.EasyMock;
+import org.junit.Test;
+
+public class JGitverPropertiesTest {
+  @Test
+  public void applies_the_precedence_rules_of_get_property() {
+    Properties user = new Properties();
+    user.put("jgitver.p1", "user");
+    user.put("jgitver_p1", "user alias");
+    user.put("jgitver_p2", "user alias");
+
+    Properties system = new Properties();
+    system.put("env.jgitver.p2", "env");
+    system.put("env.jgitver_p3", "env alias");
+    system.put("jgitver.p3", "system");
+    system.put("jgitver_p4", "system alias");
+    system.put("env.JGITVER_P5", "not a jgitver property");
+    system.put("other", "not a jgitver property");
+
+    Logger logger = new ConsoleLogger();
+    MavenSession session = EasyMock.createMock(MavenSession.class);
+    EasyMock.expect(session.getUserProperties()).andReturn(user).anyTimes();
+    EasyMock.expect(session.getSystemProperties()).andReturn(system).anyTimes();
+    EasyMock.replay(session);
+
+    JGitverProperties properties = JGitverProperties.of(session, logger);
+    for (String name :
+        Arrays.asList(
+            "jgitver.p1",
+            "jgitver_p1",
+            "jgitver.p2",
+            "jgitver_p2",
+            "jgitver.p3",
+            "jgitver-p3",
+            "jgitver.p4",
+            "jgitver.p5",
+            "jgitver.unknown")) {
+      assertThat(name, properties.get(name), is(JGitverUtils.getProperty(session, name, logger)));
+    }
+    assertThat(properties.get("jgitver.p1"), is(Optional.of("user")));
+    assertThat(properties.get("jgitver.p2"), is(Optional.of("user alias")));
+    assertThat(properties.get("jgitver-p3"), is(Optional.of("env alias")));
+    assertThat(properties.get("other"), is(Optional.empty()));
+  }
+
+  @Test
+  public void is_a_snapshot_of_the_session_properties() {
+    Properties user = new Properties();
+    user.put(JGitverUtils.EXTENSION_USE_VERSION, "1.0.0");
+    user.put(JGitverUtils.EXTENSION_MEMORY_CACHE, "false");
+    Properties system = new Properties();
+    system.put(JGitverUtils.EXTENSION_MEMORY_CACHE, "true");
+    system.put(JGitverUtils.EXTENSION_FLATTEN, "true");
+
+    JGitverProperties properties = JGitverProperties.of(user, system, null);
+    user.put(JGitverUtils.EXTENSION_USE_VERSION, "2.0.0");
+    user.put(JGitverUtils.EXTENSION_SKIP, "true");
+
+    assertThat(properties.get(JGitverUtils.EXTENSION_USE_VERSION), is(Optional.of("1.0.0")));
+    assertThat(properties.shouldSkip(), is(false));
+    assertThat(properties.shouldUseFlattenPlugin(), is(true));
+    assertThat(properties.shouldUseMemoryCache(), is(true));
+    assertThat(
+        JGitverProperties.of(new Properties(), new Properties(), null).shouldUseMemoryCache(),
+        is(false));
+    assertThat(properties.shouldUseCache(), is(false));
+    assertThat(properties.shouldForceComputation(), is(false));
+  }
+}
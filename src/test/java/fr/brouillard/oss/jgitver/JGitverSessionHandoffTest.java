@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import fr.brouillard.oss.jgitver.metadata.Metadatas;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Supplier;
+import org.apache.maven.execution.MavenSession;
+import org.easymock.EasyMock;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.junit.Test;
+
+public class JGitverSessionHandoffTest {
+  @Test
+  public void session_is_handed_over_as_is_within_the_same_class_realm() throws Exception {
+    DefaultRepositorySystemSession repositorySession = new DefaultRepositorySystemSession();
+    MavenSession mavenSession = mavenSession(repositorySession);
+    JGitverSession session = newSession();
+
+    assertThat(JGitverSessionHandoff.lookup(mavenSession).isPresent(), is(false));
+    JGitverSessionHandoff.publish(mavenSession, session);
+    assertThat(JGitverSessionHandoff.lookup(mavenSession).get(), sameInstance(session));
+
+    assertThat(JGitverSessionHandoff.isAttached(mavenSession), is(false));
+    JGitverSessionHandoff.markAttached(mavenSession);
+    assertThat(JGitverSessionHandoff.isAttached(mavenSession), is(true));
+
+    JGitverSessionHandoff.clear(mavenSession);
+    assertThat(JGitverSessionHandoff.lookup(mavenSession).isPresent(), is(false));
+    assertThat(JGitverSessionHandoff.isAttached(mavenSession), is(false));
+  }
+
+  @Test
+  public void session_is_decoded_when_published_by_another_class_realm() throws Exception {
+    DefaultRepositorySystemSession repositorySession = new DefaultRepositorySystemSession();
+    MavenSession mavenSession = mavenSession(repositorySession);
+    JGitverSession session = newSession();
+    String encoded = JGitverSession.encode(session);
+    // the handoff class of another class realm is only seen through its JDK interface
+    Supplier<String> foreign = () -> encoded;
+    repositorySession.getData().set(JGitverUtils.SESSION_MAVEN_PROPERTIES_KEY, foreign);
+
+    JGitverSession decoded = JGitverSessionHandoff.lookup(mavenSession).get();
+    assertThat(decoded.getVersion(), is(session.getVersion()));
+    assertThat(decoded.getMultiModuleDirectory(), is(session.getMultiModuleDirectory()));
+    assertThat(new ArrayList<>(decoded.getProjects()), is(new ArrayList<>(session.getProjects())));
+  }
+
+  @Test
+  public void computation_is_restored_when_published_by_another_class_realm() throws Exception {
+    DefaultRepositorySystemSession repositorySession = new DefaultRepositorySystemSession();
+    MavenSession mavenSession = mavenSession(repositorySession);
+    Map<Metadatas, String> metadatas = new EnumMap<>(Metadatas.class);
+    metadatas.put(Metadatas.GIT_SHA1_8, "abcdef12");
+    metadatas.put(Metadatas.DIRTY, "false");
+    JGitverInformationProvider computed = Providers.fromValues("1.0.0-SNAPSHOT", metadatas);
+    JGitverSession session =
+        new JGitverSession(
+            Providers.fixVersion("2.0.0", computed),
+            computed,
+            new File("/work/project"),
+            JGitverProperties.of(new Properties(), new Properties(), null),
+            new JGitverTimings());
+    JGitverSessionHandoff.publish(mavenSession, session);
+    // the handoff class of another class realm is only seen through its JDK interface
+    String encoded = JGitverSession.encode(session);
+    Supplier<String> foreign = () -> encoded;
+    repositorySession.getData().set(JGitverUtils.SESSION_MAVEN_PROPERTIES_KEY, foreign);
+
+    JGitverSession decoded = JGitverSessionHandoff.lookup(mavenSession).get();
+    assertThat(decoded.getVersion(), is("2.0.0"));
+    assertThat(decoded.getComputation().getVersion(), is("1.0.0-SNAPSHOT"));
+    assertThat(Providers.snapshot(decoded.getComputation()), is(metadatas));
+  }
+
+  private static MavenSession mavenSession(DefaultRepositorySystemSession repositorySession) {
+    MavenSession mavenSession = EasyMock.createMock(MavenSession.class);
+    EasyMock.expect(mavenSession.getRepositorySession()).andReturn(repositorySession).anyTimes();
+    EasyMock.replay(mavenSession);
+    return mavenSession;
+  }
+
+  private static JGitverSession newSession() {
+    JGitverSession session =
+        new JGitverSession(
+            Providers.fromValues("1.0.0-SNAPSHOT", Collections.emptyMap()),
+            new File("/work/my\tproject"));
+    for (GAV gav :
+        Arrays.asList(
+            new GAV("fr.brouillard.oss", "parent", "0"),
+            new GAV(null, "module", null),
+            new GAV("odd\\group", "line\nfeed", "\\0"))) {
+      session.addProject(gav);
+    }
+    return session;
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import fr.brouillard.oss.jgitver.JGitverTimings.Stage;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class JGitverTimingsTest {
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void stages_are_counted_and_summed() {
+    JGitverTimings timings = new JGitverTimings();
+    timings.record(Stage.CONFIGURATION, TimeUnit.MILLISECONDS.toNanos(3));
+    timings.record(Stage.MODEL_PROVISION, TimeUnit.MILLISECONDS.toNanos(5));
+    timings.record(Stage.MODEL_PROVISION, TimeUnit.MILLISECONDS.toNanos(7));
+    // as recorded by a mojo of another class realm
+    timings.accept("pom-attach", TimeUnit.MILLISECONDS.toNanos(2));
+    timings.accept("unknown", 1L);
+
+    assertThat(timings.count(Stage.MODEL_PROVISION), is(2L));
+    assertThat(timings.nanos(Stage.MODEL_PROVISION), is(TimeUnit.MILLISECONDS.toNanos(12)));
+    assertThat(timings.count(Stage.POM_ATTACH), is(1L));
+    assertThat(
+        timings.summary(),
+        is(
+            "jgitver timings: configuration 3 ms, model-provision 12 ms (2 calls),"
+                + " pom-attach 2 ms, total 17 ms"));
+  }
+
+  @Test
+  public void report_lists_every_stage() throws Exception {
+    JGitverTimings timings = new JGitverTimings();
+    timings.record(Stage.VERSION_COMPUTATION, 1_500_000L);
+
+    File report = new File(folder.getRoot(), "reports/jgitver-timings.json");
+    timings.write(report, "1.0.0-\"quoted\"");
+    String json = new String(Files.readAllBytes(report.toPath()), StandardCharsets.UTF_8);
+
+    assertThat(json, containsString("\"version\": \"1.0.0-\\\"quoted\\\"\""));
+    assertThat(
+        json,
+        containsString(
+            "\"version-computation\": {\"count\": 1, \"nanos\": 1500000, \"millis\": 1.500}"));
+    assertThat(
+        json, containsString("\"dirty-check\": {\"count\": 0, \"nanos\": 0, \"millis\": 0.000}"));
+    assertThat(json, containsString("\"totalMillis\": 1.500"));
+  }
+}
@@ -14,15 +14,31 @@
  */
 package fr.brouillard.oss.jgitver;
 
+import fr.brouillard.oss.jgitver.metadata.Metadatas;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Properties;
 import junit.framework.Assert;
+import org.apache.maven.MavenExecutionException;
 import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Model;
+import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.logging.Logger;
 import org.codehaus.plexus.logging.console.ConsoleLogger;
 import org.easymock.EasyMock;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class JGitverUtilsTest {
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
   @Test
   public void normalizeSystemPropertyNameTest() {
     try {
@@ -118,4 +134,107 @@ public class JGitverUtilsTest {
         "Property is not defined",
         JGitverUtils.getProperty(mavenSession, "foo", logger).isPresent());
   }
+
+  @Test
+  public void metadatasToPublishTest() throws Exception {
+    final Logger logger = new ConsoleLogger();
+    final Properties userProperties = new Properties();
+    final MavenSession mavenSession = EasyMock.createMock(MavenSession.class);
+    EasyMock.expect(mavenSession.getUserProperties()).andReturn(userProperties).anyTimes();
+    EasyMock.expect(mavenSession.getSystemProperties()).andReturn(new Properties()).anyTimes();
+    EasyMock.replay(mavenSession);
+
+    Assert.assertEquals(
+        "All metadatas are published by default",
+        EnumSet.allOf(Metadatas.class),
+        JGitverUtils.metadatasToPublish(mavenSession, logger));
+
+    userProperties.put(JGitverUtils.EXTENSION_METADATAS, "calculated_version, GIT_SHA1_8");
+    Assert.assertEquals(
+        "Selection is case insensitive",
+        EnumSet.of(Metadatas.CALCULATED_VERSION, Metadatas.GIT_SHA1_8),
+        JGitverUtils.metadatasToPublish(mavenSession, logger));
+
+    userProperties.put(JGitverUtils.EXTENSION_METADATAS, "unknown");
+    try {
+      JGitverUtils.metadatasToPublish(mavenSession, logger);
+      Assert.fail("unknown metadata names must be rejected");
+    } catch (final MavenExecutionException expected) {
+    }
+  }
+
+  @Test
+  public void attachedPomsAreWrittenUnderTheBuildDirectoryOnlyWhenChanged() throws Exception {
+    final Logger logger = new ConsoleLogger();
+    File basedir = folder.newFolder("module");
+    File pom = new File(basedir, "pom.xml");
+    Files.write(
+        pom.toPath(),
+        ("<project>\n  <groupId>g</groupId>\n  <artifactId>a</artifactId>\n"
+                + "  <version>0</version>\n</project>\n")
+            .getBytes(StandardCharsets.UTF_8));
+
+    Model model = new Model();
+    model.setGroupId("g");
+    model.setArtifactId("a");
+    model.setVersion("0");
+    Build build = new Build();
+    build.setDirectory(new File(basedir, "target").getAbsolutePath());
+    model.setBuild(build);
+    MavenProject project = new MavenProject(model);
+    project.setFile(pom);
+    List<MavenProject> projects = Collections.singletonList(project);
+
+    JGitverUtils.attachModifiedPomFilesToTheProject(
+        projects, Collections.singleton(new GAV("g", "a", "0")), "1.0.0", false, logger);
+
+    File attached = new File(basedir, "target/jgitver/pom.xml");
+    Assert.assertEquals(attached, project.getFile());
+    Assert.assertTrue(
+        new String(Files.readAllBytes(attached.toPath()), StandardCharsets.UTF_8)
+            .contains("<version>1.0.0</version>"));
+
+    Assert.assertTrue(attached.setLastModified(1000L));
+    project.setFile(pom);
+    JGitverUtils.attachModifiedPomFilesToTheProject(
+        projects, Collections.singleton(new GAV("g", "a", "0")), "1.0.0", false, logger);
+    Assert.assertEquals("unchanged pom is not rewritten", 1000L, attached.lastModified());
+
+    JGitverUtils.deleteStalePomDumpFiles(projects, logger);
+    Assert.assertTrue("attached pom is kept", attached.isFile());
+
+    project.setFile(pom);
+    JGitverUtils.deleteStalePomDumpFiles(projects, logger);
+    Assert.assertFalse("pom not attached in the session is deleted", attached.exists());
+  }
+
+  @Test
+  public void attachedPomsAreBuiltFromTheRawPomsOfTheProjects() throws Exception {
+    final Logger logger = new ConsoleLogger();
+    File basedir = folder.newFolder("in-memory");
+    Model model = new Model();
+    model.setGroupId("g");
+    model.setArtifactId("a");
+    model.setVersion("0");
+    MavenProject project = new MavenProject(model);
+    // the pom file does not exist, only its raw content read by the model processor is available
+    project.setFile(new File(basedir, "pom.xml"));
+    project.setContextValue(
+        JGitverUtils.RAW_POM_CONTEXT_KEY,
+        ByteBuffer.wrap(
+                "<project><groupId>g</groupId><artifactId>a</artifactId><version>0</version></project>"
+                    .getBytes(StandardCharsets.UTF_8))
+            .asReadOnlyBuffer());
+
+    JGitverUtils.attachModifiedPomFilesToTheProject(
+        Collections.singletonList(project),
+        Collections.singleton(new GAV("g", "a", "0")),
+        "1.0.0",
+        false,
+        logger);
+
+    Assert.assertEquals(
+        "<project><groupId>g</groupId><artifactId>a</artifactId><version>1.0.0</version></project>",
+        new String(Files.readAllBytes(project.getFile().toPath()), StandardCharsets.UTF_8));
+  }
 }
@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import org.junit.Test;
+
+public class ReactorLocationsTest {
+  @Test
+  public void rejects_locations_outside_of_the_reactor() {
+    File root = com.google.common.io.Files.createTempDir();
+    File sibling = new File(root.getParentFile(), root.getName() + "-sibling");
+    ReactorLocations locations = new ReactorLocations(root);
+
+    assertThat(locations.mayContain(new File(root, "pom.xml").getPath()), is(true));
+    assertThat(locations.mayContain(new File(root, "module/pom.xml").getPath()), is(true));
+    assertThat(locations.mayContain(new File(sibling, "pom.xml").getPath()), is(false));
+    assertThat(
+        locations.mayContain(
+            new File(System.getProperty("user.home"), ".m2/repository/a/b/1.0/b-1.0.pom")
+                .getAbsolutePath()),
+        is(false));
+
+    // left to the full checks
+    assertThat(locations.mayContain(new File(sibling, "../pom.xml").getPath()), is(true));
+    assertThat(locations.mayContain("pom.xml"), is(true));
+    assertThat(locations.mayContain(""), is(true));
+  }
+}
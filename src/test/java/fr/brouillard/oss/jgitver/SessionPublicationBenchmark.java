@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the cost of publishing the {@link JGitverSession} for a reactor of growing size.
+ *
+ * <p>{@code publishOnEveryModel} reproduces the oldest behavior where the session was serialized in
+ * the user properties after each model read, its cost grows with the square of the number of
+ * modules. {@code publishOnce} serializes it once. {@code encode} and {@code decode} are the cost
+ * of the codec used by mojos living in another class realm than the extension, the in-JVM handoff
+ * itself does not serialize anything.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=fr.brouillard.oss.jgitver.SessionPublicationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SessionPublicationBenchmark {
+  @Param({"100", "500", "2000"})
+  private int modules;
+
+  private List<GAV> projects;
+
+  private String encoded;
+
+  @Setup
+  public void setup() {
+    projects = new ArrayList<>(modules);
+    for (int i = 0; i < modules; i++) {
+      projects.add(new GAV("fr.brouillard.oss.benchmark", "module-" + i, "0.0.0-SNAPSHOT"));
+    }
+    encoded = encode();
+  }
+
+  @Benchmark
+  public Properties publishOnEveryModel() {
+    Properties userProperties = new Properties();
+    JGitverSession session = newSession();
+    for (GAV project : projects) {
+      session.addProject(project);
+      userProperties.put(JGitverUtils.SESSION_MAVEN_PROPERTIES_KEY, JGitverSession.encode(session));
+    }
+    return userProperties;
+  }
+
+  @Benchmark
+  public Properties publishOnce() {
+    Properties userProperties = new Properties();
+    userProperties.put(JGitverUtils.SESSION_MAVEN_PROPERTIES_KEY, encode());
+    return userProperties;
+  }
+
+  @Benchmark
+  public String encode() {
+    JGitverSession session = newSession();
+    for (GAV project : projects) {
+      session.addProject(project);
+    }
+    return JGitverSession.encode(session);
+  }
+
+  @Benchmark
+  public JGitverSession decode() throws IOException {
+    return JGitverSession.decode(encoded);
+  }
+
+  private static JGitverSession newSession() {
+    return new JGitverSession(
+        Providers.fromValues("1.0.0-SNAPSHOT", Collections.emptyMap()), new File("."));
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(
+            new OptionsBuilder().include(SessionPublicationBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
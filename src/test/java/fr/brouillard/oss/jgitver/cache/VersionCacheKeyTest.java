@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver.cache;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+import fr.brouillard.oss.jgitver.cfg.CompiledConfiguration;
+import fr.brouillard.oss.jgitver.cfg.Configuration;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.eclipse.jgit.api.Git;
+import org.junit.Test;
+
+public class VersionCacheKeyTest {
+  private static final long PAST = System.currentTimeMillis() - 60_000L;
+
+  @Test
+  public void key_changes_when_a_tracked_file_is_modified() throws Exception {
+    File dir = com.google.common.io.Files.createTempDir();
+    CompiledConfiguration compiled = CompiledConfiguration.compile(new Configuration());
+
+    try (Git git = Git.init().setDirectory(dir).call()) {
+      File pom = new File(dir, "pom.xml");
+      write(pom, "<project/>", PAST);
+      git.add().addFilepattern(".").call();
+      git.commit().setMessage("initial").setAuthor("nobody", "nobody@nowhere.com").call();
+      String clean = VersionCacheKey.compute(dir, compiled, false).get();
+      assertThat(VersionCacheKey.compute(dir, compiled, false).get(), is(clean));
+
+      // the index is left untouched by the edition of a tracked file
+      long indexModification = new File(dir, ".git/index").lastModified();
+      write(pom, "<PROJECT/>", PAST + 2000);
+      assertThat(new File(dir, ".git/index").lastModified(), is(indexModification));
+      assertThat(VersionCacheKey.compute(dir, compiled, false).get(), not(is(clean)));
+
+      // a timestamp that recent cannot be trusted
+      write(pom, "<project/>", System.currentTimeMillis());
+      assertThat(VersionCacheKey.compute(dir, compiled, false).isPresent(), is(false));
+    }
+  }
+
+  @Test
+  public void untracked_files_are_seen_when_the_dirty_state_matters() throws Exception {
+    File dir = com.google.common.io.Files.createTempDir();
+    CompiledConfiguration compiled = CompiledConfiguration.compile(new Configuration());
+    Configuration cfg = new Configuration();
+    cfg.useDirty = true;
+    CompiledConfiguration useDirty = CompiledConfiguration.compile(cfg);
+
+    try (Git git = Git.init().setDirectory(dir).call()) {
+      write(new File(dir, "pom.xml"), "<project/>", PAST);
+      git.add().addFilepattern(".").call();
+      git.commit().setMessage("initial").setAuthor("nobody", "nobody@nowhere.com").call();
+      String clean = VersionCacheKey.compute(dir, compiled, false).get();
+      String cleanUseDirty = VersionCacheKey.compute(dir, useDirty, false).get();
+
+      write(new File(dir, "README"), "untracked", PAST);
+      assertThat(VersionCacheKey.compute(dir, compiled, false).get(), is(clean));
+      assertThat(VersionCacheKey.compute(dir, useDirty, false).get(), not(is(cleanUseDirty)));
+    }
+  }
+
+  @Test
+  public void key_changes_when_a_lightweight_tag_becomes_annotated() throws Exception {
+    File dir = com.google.common.io.Files.createTempDir();
+    CompiledConfiguration compiled = CompiledConfiguration.compile(new Configuration());
+
+    try (Git git = Git.init().setDirectory(dir).call()) {
+      write(new File(dir, "pom.xml"), "<project/>", PAST);
+      git.add().addFilepattern(".").call();
+      git.commit().setMessage("initial").setAuthor("nobody", "nobody@nowhere.com").call();
+      File tag = new File(dir, ".git/refs/tags/1.0.0");
+
+      git.tag().setName("1.0.0").setAnnotated(false).call();
+      tag.setLastModified(PAST);
+      String lightweight = VersionCacheKey.compute(dir, compiled, false).get();
+
+      git.tag()
+          .setName("1.0.0")
+          .setAnnotated(true)
+          .setMessage("release")
+          .setForceUpdate(true)
+          .call();
+      // same name, same size & same timestamp, only the tagged object differs
+      tag.setLastModified(PAST);
+      assertThat(VersionCacheKey.compute(dir, compiled, false).get(), not(is(lightweight)));
+    }
+  }
+
+  private static void write(File file, String content, long lastModified) throws Exception {
+    file.getParentFile().mkdirs();
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    file.setLastModified(lastModified);
+  }
+}
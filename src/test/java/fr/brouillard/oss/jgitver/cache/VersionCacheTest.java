@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver.cache;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import fr.brouillard.oss.jgitver.JGitverInformationProvider;
+import fr.brouillard.oss.jgitver.Providers;
+import fr.brouillard.oss.jgitver.cfg.Configuration;
+import fr.brouillard.oss.jgitver.cfg.InMemoryLogger;
+import fr.brouillard.oss.jgitver.metadata.Metadatas;
+import java.io.File;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.Test;
+
+public class VersionCacheTest {
+  @Test
+  public void can_store_and_read_back_a_computation() {
+    File dir = com.google.common.io.Files.createTempDir();
+    VersionCache cache = new VersionCache(dir, new InMemoryLogger());
+
+    Map<Metadatas, String> metadatas = new EnumMap<>(Metadatas.class);
+    metadatas.put(Metadatas.GIT_SHA1_FULL, "0123456789abcdef0123456789abcdef01234567");
+    metadatas.put(Metadatas.DIRTY, "false");
+    cache.store("key-1", Providers.fromValues("1.2.3-SNAPSHOT", metadatas));
+
+    Optional<JGitverInformationProvider> cached = cache.lookup("key-1");
+    assertThat(cached.isPresent(), is(true));
+    assertThat(cached.get().getVersion(), is("1.2.3-SNAPSHOT"));
+    assertThat(cached.get().meta(Metadatas.DIRTY).get(), is("false"));
+    assertThat(cached.get().meta(Metadatas.BRANCH_NAME).isPresent(), is(false));
+
+    assertThat(cache.lookup("key-2").isPresent(), is(false));
+  }
+
+  @Test
+  public void exported_file_can_be_imported() throws Exception {
+    File file = new File(com.google.common.io.Files.createTempDir(), "jgitver.properties");
+    Map<Metadatas, String> metadatas = new EnumMap<>(Metadatas.class);
+    metadatas.put(Metadatas.BRANCH_NAME, "master");
+    VersionFiles.write(file, Providers.fromValues("3.1.0", metadatas), "test");
+
+    JGitverInformationProvider imported = VersionFiles.read(file);
+    assertThat(imported.getVersion(), is("3.1.0"));
+    assertThat(imported.meta(Metadatas.BRANCH_NAME).get(), is("master"));
+    assertThat(imported.meta(Metadatas.DIRTY).isPresent(), is(false));
+  }
+
+  @Test
+  public void in_memory_cache_is_bound_to_the_root_directory_and_key() {
+    File root = new File("/some/root");
+    InMemoryVersionCache.store(
+        root, "key-1", Providers.fromValues("2.0.0", new EnumMap<>(Metadatas.class)));
+
+    assertThat(InMemoryVersionCache.lookup(root, "key-1").get().getVersion(), is("2.0.0"));
+    assertThat(InMemoryVersionCache.lookup(root, "key-2").isPresent(), is(false));
+    assertThat(InMemoryVersionCache.lookup(new File("/other"), "key-1").isPresent(), is(false));
+
+    InMemoryVersionCache.clear();
+    assertThat(InMemoryVersionCache.lookup(root, "key-1").isPresent(), is(false));
+  }
+
+  @Test
+  public void configuration_changes_alter_the_fingerprint() {
+    Configuration cfg = new Configuration();
+    String initial = VersionCacheKey.configurationFingerprint(cfg);
+    assertThat(VersionCacheKey.configurationFingerprint(new Configuration()), is(initial));
+
+    cfg.useDirty = !cfg.useDirty;
+    assertThat(VersionCacheKey.configurationFingerprint(cfg).equals(initial), is(false));
+  }
+}
@@ -18,9 +18,11 @@ package fr.brouillard.oss.jgitver.cfg;
 import static fr.brouillard.oss.jgitver.cfg.ResourceConfigurationProvider.fromResource;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
+import java.io.File;
 import java.io.IOException;
 import org.apache.maven.MavenExecutionException;
 import org.junit.After;
@@ -102,4 +104,35 @@ public class ConfigurationLoaderTest {
       assertThat(allPolicy.transformations.get(1), is("UPPERCASE_EN"));
     }
   }
+
+  @Test
+  public void compiled_configuration_is_reused_until_the_file_changes()
+      throws MavenExecutionException, IOException {
+    try (ResourceConfigurationProvider res = fromResource("/config/complex-branch.cfg.xml")) {
+      File cfgFile = new File(res.getConfigurationDirectory(), ".mvn/jgitver.config.xml");
+      long past = System.currentTimeMillis() - 60_000;
+      assertThat(cfgFile.setLastModified(past), is(true));
+      CompiledConfiguration first =
+          new ConfigurationLoader(res.getConfigurationDirectory(), inMemoryLogger).loadCompiled();
+      assertThat(first.getBranchingPolicies().size(), is(2));
+
+      CompiledConfiguration second =
+          new ConfigurationLoader(res.getConfigurationDirectory(), inMemoryLogger).loadCompiled();
+      assertThat(second, sameInstance(first));
+
+      assertThat(cfgFile.setLastModified(past - 10_000), is(true));
+      CompiledConfiguration reloaded =
+          new ConfigurationLoader(res.getConfigurationDirectory(), inMemoryLogger).loadCompiled();
+      assertThat(reloaded == first, is(false));
+      assertThat(reloaded.getConfiguration().branchPolicies.size(), is(2));
+
+      // modified while being cached, a later change could keep the same size & timestamp
+      assertThat(cfgFile.setLastModified(System.currentTimeMillis()), is(true));
+      CompiledConfiguration racy =
+          new ConfigurationLoader(res.getConfigurationDirectory(), inMemoryLogger).loadCompiled();
+      CompiledConfiguration racyAgain =
+          new ConfigurationLoader(res.getConfigurationDirectory(), inMemoryLogger).loadCompiled();
+      assertThat(racyAgain == racy, is(false));
+    }
+  }
 }
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver.cfg;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.simpleframework.xml.convert.AnnotationStrategy;
+import org.simpleframework.xml.core.Persister;
+
+/**
+ * Compares the former simplexml reading of the configuration file, with a new persister per load,
+ * to the streaming {@link ConfigurationParser}.
+ *
+ * <p>Steady state figures come from JMH. As the configuration is read once per JVM start, the class
+ * loading cost matters more: {@code main} with the {@code classes} argument reads the configuration
+ * once per reader in a fresh JVM and reports the number of classes loaded by the read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigurationLoadingBenchmark {
+  private static final String CONFIGURATION = "/config/issue-51-cfg.xml";
+
+  private File configurationXml;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    configurationXml = copyConfiguration();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(configurationXml.toPath());
+  }
+
+  @Benchmark
+  public Configuration simpleXml() throws Exception {
+    return new Persister(new AnnotationStrategy()).read(Configuration.class, configurationXml);
+  }
+
+  @Benchmark
+  public Configuration stax() throws Exception {
+    return ConfigurationParser.parse(configurationXml);
+  }
+
+  private static File copyConfiguration() throws IOException {
+    File file = File.createTempFile("jgitver.config", ".xml");
+    Files.copy(
+        ConfigurationLoadingBenchmark.class.getResourceAsStream(CONFIGURATION),
+        file.toPath(),
+        StandardCopyOption.REPLACE_EXISTING);
+    return file;
+  }
+
+  /**
+   * Runs the benchmarks, or with the {@code classes} argument compares the class loading of both
+   * readers.
+   *
+   * @param args nothing, {@code classes} or {@code classes <simpleXml|stax>} for a single reader
+   * @throws Exception if the benchmark fails
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length == 2 && "classes".equals(args[0])) {
+      File file = copyConfiguration();
+      try {
+        long before = ManagementFactory.getClassLoadingMXBean().getTotalLoadedClassCount();
+        if ("stax".equals(args[1])) {
+          ConfigurationParser.parse(file);
+        } else {
+          new Persister(new AnnotationStrategy()).read(Configuration.class, file);
+        }
+        long after = ManagementFactory.getClassLoadingMXBean().getTotalLoadedClassCount();
+        System.out.println(args[1] + ": " + (after - before) + " classes loaded");
+      } finally {
+        Files.deleteIfExists(file.toPath());
+      }
+    } else if (args.length == 1 && "classes".equals(args[0])) {
+      for (String reader : Arrays.asList("simpleXml", "stax")) {
+        List<String> command = new ArrayList<>();
+        command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ConfigurationLoadingBenchmark.class.getName());
+        command.add("classes");
+        command.add(reader);
+        new ProcessBuilder(command).inheritIO().start().waitFor();
+      }
+    } else {
+      new Runner(
+              new OptionsBuilder()
+                  .include(ConfigurationLoadingBenchmark.class.getSimpleName())
+                  .addProfiler(GCProfiler.class)
+                  .build())
+          .run();
+    }
+  }
+}
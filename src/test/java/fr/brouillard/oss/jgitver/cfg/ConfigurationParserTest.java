@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver.cfg;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.simpleframework.xml.convert.AnnotationStrategy;
+import org.simpleframework.xml.core.Persister;
+
+/** Checks that the streaming parser reads configurations like the former simplexml mapping. */
+public class ConfigurationParserTest {
+  private static final String HEADER =
+      "<configuration xmlns=\""
+          + ConfigurationParser.NAMESPACE_1_0_0
+          + "\"\n"
+          + "    xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n"
+          + "    xsi:schemaLocation=\""
+          + ConfigurationParser.NAMESPACE_1_0_0
+          + " https://jgitver.github.io/maven/configuration/jgitver-configuration-v1_0_0.xsd\">\n";
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void reads_the_test_configurations_like_simplexml() throws Exception {
+    for (String resource :
+        Arrays.asList(
+            "/config/simple.cfg.xml",
+            "/config/simple.cfg.with.schema.xml",
+            "/config/complex-branch.cfg.xml",
+            "/config/issue-51-cfg.xml")) {
+      File file = folder.newFile();
+      Files.copy(
+          ConfigurationParserTest.class.getResourceAsStream(resource),
+          file.toPath(),
+          java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+      assertSameAsSimpleXml(file);
+    }
+  }
+
+  @Test
+  public void reads_all_elements_like_simplexml() throws Exception {
+    assertSameAsSimpleXml(
+        write(
+            HEADER
+                + "  <!-- all the elements -->\n"
+                + "  <mavenLike>false</mavenLike>\n"
+                + "  <strategy>PATTERN</strategy>\n"
+                + "  <policy>LATEST</policy>\n"
+                + "  <autoIncrementPatch>false</autoIncrementPatch>\n"
+                + "  <useCommitDistance>true</useCommitDistance>\n"
+                + "  <useDirty>true</useDirty>\n"
+                + "  <failIfDirty>true</failIfDirty>\n"
+                + "  <useDefaultBranchingPolicy>false</useDefaultBranchingPolicy>\n"
+                + "  <useGitCommitTimestamp>true</useGitCommitTimestamp>\n"
+                + "  <useGitCommitId>true</useGitCommitId>\n"
+                + "  <useSnapshot>true</useSnapshot>\n"
+                + "  <gitCommitIdLength>12</gitCommitIdLength>\n"
+                + "  <maxSearchDepth>100</maxSearchDepth>\n"
+                + "  <nonQualifierBranches>master,main</nonQualifierBranches>\n"
+                + "  <regexVersionTag><![CDATA[v?([0-9]+\\.[0-9]+\\.[0-9]+)]]></regexVersionTag>\n"
+                + "  <versionPattern>${M}.${m}.${p}&amp;${meta.COMMIT_DISTANCE}</versionPattern>\n"
+                + "  <tagVersionPattern>${v}</tagVersionPattern>\n"
+                + "  <exclusions>\n"
+                + "    <exclusion>tests/**</exclusion>\n"
+                + "    <exclusion>docs</exclusion>\n"
+                + "  </exclusions>\n"
+                + "  <branchPolicies>\n"
+                + "    <branchPolicy>\n"
+                + "      <pattern>release/(.*)</pattern>\n"
+                + "    </branchPolicy>\n"
+                + "  </branchPolicies>\n"
+                + "  <skipPomUpdate>true</skipPomUpdate>\n"
+                + "  <script>print 'x'</script>\n"
+                + "  <scriptType>GROOVY</scriptType>\n"
+                + "</configuration>\n"));
+  }
+
+  @Test
+  public void reads_empty_elements_like_simplexml() throws Exception {
+    assertSameAsSimpleXml(
+        write(
+            HEADER
+                + "  <nonQualifierBranches></nonQualifierBranches>\n"
+                + "  <useDirty>\n    true\n  </useDirty>\n"
+                + "  <exclusions/>\n"
+                + "  <branchPolicies></branchPolicies>\n"
+                + "</configuration>\n"));
+  }
+
+  @Test
+  public void rejects_unknown_elements() throws Exception {
+    File file = write(HEADER + "  <doesNotExist></doesNotExist>\n</configuration>\n");
+    try {
+      ConfigurationParser.parse(file);
+      fail("unknown elements must be rejected");
+    } catch (IOException expected) {
+      assertThat(expected.getMessage().contains("doesNotExist"), is(true));
+    }
+  }
+
+  private File write(String content) throws IOException {
+    File file = folder.newFile();
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+
+  private static void assertSameAsSimpleXml(File file) throws Exception {
+    Configuration expected =
+        new Persister(new AnnotationStrategy()).read(Configuration.class, file);
+    Configuration actual = ConfigurationParser.parse(file);
+    assertThat(describe(actual), is(describe(expected)));
+  }
+
+  private static String describe(Configuration cfg) throws IllegalAccessException {
+    StringBuilder sb = new StringBuilder();
+    for (Field field : Configuration.class.getFields()) {
+      if (!Modifier.isStatic(field.getModifiers())) {
+        sb.append(field.getName()).append('=').append(describe(field.get(cfg))).append('\n');
+      }
+    }
+    return sb.toString();
+  }
+
+  private static String describe(Object value) {
+    if (value instanceof List) {
+      StringBuilder sb = new StringBuilder("[");
+      for (Object item : (List<?>) value) {
+        sb.append(describe(item)).append(',');
+      }
+      return sb.append(']').toString();
+    } else if (value instanceof BranchPolicy) {
+      BranchPolicy bp = (BranchPolicy) value;
+      return "{" + bp.pattern + "|" + describe(bp.transformations) + "}";
+    }
+    return String.valueOf(value);
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver.git;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.eclipse.jgit.api.Git;
+import org.junit.Test;
+
+public class DirtyCheckerTest {
+  @Test
+  public void detects_modifications_like_git_status() throws Exception {
+    File dir = com.google.common.io.Files.createTempDir();
+
+    try (Git git = Git.init().setDirectory(dir).call()) {
+      write(new File(dir, ".gitignore"), "ignored/\n");
+      write(new File(dir, "pom.xml"), "<project/>");
+      git.add().addFilepattern(".").call();
+      git.commit().setMessage("initial").setAuthor("nobody", "nobody@nowhere.com").call();
+
+      assertThat(DirtyChecker.isDirty(dir), is(false));
+
+      write(new File(dir, "ignored/A.class"), "binary");
+      assertThat(DirtyChecker.isDirty(dir), is(false));
+
+      File pom = new File(dir, "pom.xml");
+      write(pom, "<PROJECT/>");
+      pom.setLastModified(pom.lastModified() + 2000);
+      assertThat(DirtyChecker.isDirty(dir), is(true));
+
+      write(pom, "<project/>");
+      assertThat(DirtyChecker.isDirty(dir), is(false));
+
+      write(new File(dir, "target/classes/A.class"), "binary");
+      assertThat(DirtyChecker.isDirty(dir), is(true));
+      assertThat(git.status().call().isClean(), is(false));
+    }
+  }
+
+  private static void write(File file, String content) throws Exception {
+    file.getParentFile().mkdirs();
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+  }
+}
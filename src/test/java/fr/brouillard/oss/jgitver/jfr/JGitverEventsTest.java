@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver.jfr;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class JGitverEventsTest {
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void nothing_is_created_when_not_recording() {
+    assertThat(
+        JGitverEvents.modelProvision(new File("pom.xml")) instanceof jdk.jfr.Event, is(false));
+  }
+
+  @Test
+  public void events_are_recorded_with_their_fields() throws Exception {
+    Path dump = folder.newFile("jgitver.jfr").toPath();
+    try (Recording recording = new Recording()) {
+      recording.enable(JGitverModelProvision.class).withoutThreshold();
+      recording.disable(JGitverConfigLoad.class);
+      recording.start();
+
+      JGitverEvents.modelProvision(new File("module/pom.xml"))
+          .cacheHit(true)
+          .version("1.0.0")
+          .finish();
+      // disabled by the recording
+      JGitverEvents.configLoad(new File(".mvn/jgitver.config.xml")).finish();
+
+      recording.stop();
+      recording.dump(dump);
+    }
+
+    List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+    assertThat(events.size(), is(1));
+    RecordedEvent event = events.get(0);
+    assertThat(event.getEventType().getName(), is("fr.brouillard.oss.jgitver.ModelProvision"));
+    assertThat(event.getString("modulePath"), is(new File("module/pom.xml").getPath()));
+    assertThat(event.getBoolean("cacheHit"), is(true));
+    assertThat(event.getString("version"), is("1.0.0"));
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver.pom;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import fr.brouillard.oss.jgitver.GAV;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Scm;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.junit.Test;
+
+public class PomPatcherTest {
+  private static final String MODULE =
+      "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+          + "<!-- module header -->\n"
+          + "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n"
+          + "  <modelVersion>4.0.0</modelVersion>\n"
+          + "  <parent>\n"
+          + "    <groupId>fr.brouillard.oss.it</groupId>\n"
+          + "    <artifactId>parent</artifactId>\n"
+          + "    <version>0</version> <!-- replaced by jgitver -->\n"
+          + "  </parent>\n"
+          + "  <artifactId>module</artifactId>\n"
+          + "  <properties>\n"
+          + "    <module.version>${project.version}</module.version>\n"
+          + "    <other>1.0</other>\n"
+          + "  </properties>\n"
+          + "  <scm>\n"
+          + "    <url>https://example.org/repository</url>\n"
+          + "  </scm>\n"
+          + "  <dependencies>\n"
+          + "    <dependency>\n"
+          + "      <groupId>fr.brouillard.oss.it</groupId>\n"
+          + "      <artifactId>sibling</artifactId>\n"
+          + "      <version>${project.version}</version>\n"
+          + "    </dependency>\n"
+          + "  </dependencies>\n"
+          + "</project>\n";
+
+  @Test
+  public void patches_versions_and_keeps_the_rest_untouched() throws Exception {
+    Set<GAV> gavs =
+        new HashSet<>(
+            Arrays.asList(
+                new GAV("fr.brouillard.oss.it", "parent", "0"),
+                new GAV("fr.brouillard.oss.it", "module", "0")));
+    Scm scm = new Scm();
+    scm.setTag("v1.2.3");
+
+    String patched = new PomPatcher(gavs, "1.2.3", true).patch(MODULE, scm).get();
+
+    assertThat(patched, containsString("<!-- module header -->"));
+    assertThat(patched, containsString("<version>1.2.3</version> <!-- replaced by jgitver -->"));
+    assertThat(
+        patched, containsString("  <artifactId>module</artifactId>\n  <version>1.2.3</version>\n"));
+    assertThat(
+        patched,
+        containsString(
+            "    <url>https://example.org/repository</url>\n    <tag>v1.2.3</tag>\n  </scm>"));
+
+    Model model = new MavenXpp3Reader().read(new StringReader(patched));
+    assertThat(model.getVersion(), is("1.2.3"));
+    assertThat(model.getParent().getVersion(), is("1.2.3"));
+    assertThat(model.getScm().getTag(), is("v1.2.3"));
+    assertThat(model.getProperties().getProperty("module.version"), is("1.2.3"));
+    assertThat(model.getProperties().getProperty("other"), is("1.0"));
+    assertThat(model.getDependencies().get(0).getVersion(), is("1.2.3"));
+  }
+
+  @Test
+  public void leaves_poms_of_unknown_projects_unchanged() {
+    Set<GAV> gavs = new HashSet<>(Arrays.asList(new GAV("other", "project", "0")));
+    assertThat(new PomPatcher(gavs, "1.2.3", false).patch(MODULE, null).get(), is(MODULE));
+  }
+
+  @Test
+  public void refuses_poms_it_cannot_patch_safely() {
+    Set<GAV> gavs = new HashSet<>(Arrays.asList(new GAV("g", "a", "0")));
+    PomPatcher patcher = new PomPatcher(gavs, "1.2.3", false);
+
+    assertThat(
+        patcher
+            .patch(
+                "<!DOCTYPE project [<!ENTITY v \"0\">]><project><version>&v;</version></project>",
+                null)
+            .isPresent(),
+        is(false));
+    assertThat(
+        patcher
+            .patch(
+                "<project><groupId>g</groupId><artifactId>a</artifactId>"
+                    + "<version><!-- c -->0</version></project>",
+                null)
+            .isPresent(),
+        is(false));
+    assertThat(patcher.patch("<project><version>0</project>", null).isPresent(), is(false));
+  }
+}
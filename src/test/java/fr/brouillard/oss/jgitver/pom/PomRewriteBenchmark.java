@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2016 Matthieu Brouillard [http://oss.brouillard.fr/jgitver-maven-plugin] (matthieu@brouillard.fr)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.brouillard.oss.jgitver.pom;
+
+import fr.brouillard.oss.jgitver.GAV;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.apache.maven.model.io.xpp3.MavenXpp3Writer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the former model round trip ({@code MavenXpp3Reader} then {@code MavenXpp3Writer}) with
+ * the {@link PomPatcher} on the version change of a synthetic pom. The main method enables the gc
+ * profiler for allocation figures.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PomRewriteBenchmark {
+  private static final String VERSION = "1.2.3";
+
+  @Param({"20", "500"})
+  private int dependencies;
+
+  private String pom;
+  private Set<GAV> gavs;
+  private PomPatcher patcher;
+
+  @Setup
+  public void setup() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+        .append("<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n")
+        .append("  <modelVersion>4.0.0</modelVersion>\n")
+        .append("  <groupId>fr.brouillard.oss.benchmark</groupId>\n")
+        .append("  <artifactId>benchmark</artifactId>\n")
+        .append("  <version>0</version>\n")
+        .append("  <dependencies>\n");
+    for (int i = 0; i < dependencies; i++) {
+      sb.append("    <!-- dependency ")
+          .append(i)
+          .append(" -->\n")
+          .append("    <dependency>\n")
+          .append("      <groupId>fr.brouillard.oss.benchmark</groupId>\n")
+          .append("      <artifactId>dependency-")
+          .append(i)
+          .append("</artifactId>\n")
+          .append("      <version>1.0.")
+          .append(i)
+          .append("</version>\n")
+          .append("    </dependency>\n");
+    }
+    sb.append("  </dependencies>\n").append("</project>\n");
+    pom = sb.toString();
+    gavs = Collections.singleton(new GAV("fr.brouillard.oss.benchmark", "benchmark", "0"));
+    patcher = new PomPatcher(gavs, VERSION, false);
+  }
+
+  @Benchmark
+  public String modelRoundTrip() throws Exception {
+    Model model = new MavenXpp3Reader().read(new StringReader(pom));
+    if (gavs.contains(GAV.from(model))) {
+      model.setVersion(VERSION);
+    }
+    StringWriter writer = new StringWriter(pom.length());
+    new MavenXpp3Writer().write(writer, model);
+    return writer.toString();
+  }
+
+  @Benchmark
+  public String patch() {
+    return patcher.patch(pom, null).get();
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(
+            new OptionsBuilder()
+                .include(PomRewriteBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+        .run();
+  }
+}